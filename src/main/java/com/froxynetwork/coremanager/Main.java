@@ -4,12 +4,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.froxynetwork.coremanager.cluster.ClusterEventLoop;
 import com.froxynetwork.coremanager.command.CommandManager;
 import com.froxynetwork.coremanager.scheduler.Scheduler;
+import com.froxynetwork.coremanager.server.ReconciliationService;
+import com.froxynetwork.coremanager.server.ReloadSummary;
 import com.froxynetwork.coremanager.server.ServerManager;
 import com.froxynetwork.coremanager.server.config.ServerConfigManager;
 import com.froxynetwork.coremanager.websocket.WebSocketManager;
@@ -57,6 +61,10 @@ public class Main {
 	@Getter
 	private CommandManager commandManager;
 	@Getter
+	private ClusterEventLoop clusterEventLoop;
+	@Getter
+	private ReconciliationService reconciliationService;
+	@Getter
 	private ServerManager serverManager;
 	@Getter
 	private WebSocketManager webSocketManager;
@@ -92,10 +100,18 @@ public class Main {
 			initializeNetwork();
 			initializeServerConfig(() -> {
 				// Initialize Servers once ServerConfig is initialized
-				initializeServer();
-				initializeWebSocket();
-				initializeCommands();
-				LOG.info("All initialized");
+				initializeClusterEventLoop();
+				initializeReconciliation();
+				initializeServer().whenComplete((summary, t) -> {
+					try {
+						initializeWebSocket();
+						initializeCommands();
+						LOG.info("All initialized");
+					} catch (Exception ex) {
+						LOG.error("ERROR: ", ex);
+						System.exit(1);
+					}
+				});
 			});
 		} catch (Exception ex) {
 			LOG.error("ERROR: ", ex);
@@ -133,11 +149,33 @@ public class Main {
 		}
 	}
 
-	private void initializeServer() {
+	private void initializeClusterEventLoop() {
+		LOG.info("Initializing ClusterEventLoop");
+		int capacity = getIntProperty("cluster_queue_size", 65536);
+		LOG.info("cluster_queue_size = {}", capacity);
+		clusterEventLoop = new ClusterEventLoop(capacity);
+		LOG.info("ClusterEventLoop initialized");
+	}
+
+	private void initializeReconciliation() {
+		LOG.info("Initializing ReconciliationService");
+		int threads = getIntProperty("vps_check_threads", 2);
+		int interval = getIntProperty("vps_check_interval", 10000);
+		LOG.info("vps_check_threads = {}, vps_check_interval = {}", threads, interval);
+		reconciliationService = new ReconciliationService(threads, interval);
+		LOG.info("ReconciliationService initialized");
+	}
+
+	private CompletableFuture<ReloadSummary> initializeServer() {
 		LOG.info("Initializing ServerManager");
 		serverManager = new ServerManager();
-		serverManager.reload();
-		LOG.info("ServerManager initialized");
+		return serverManager.reload().whenComplete((summary, t) -> {
+			if (t != null) {
+				LOG.error("An error has occured while loading servers: ", t);
+				return;
+			}
+			LOG.info("ServerManager initialized ({})", summary);
+		});
 	}
 
 	private void initializeWebSocket() {
@@ -170,6 +208,15 @@ public class Main {
 		LOG.info("Shutdowning WebSocket");
 		webSocketManager.stop();
 
+		LOG.info("Shutdowning ServerManager");
+		serverManager.stop();
+
+		LOG.info("Shutdowning ReconciliationService");
+		reconciliationService.stop();
+
+		LOG.info("Shutdowning ClusterEventLoop");
+		clusterEventLoop.stop();
+
 		LOG.info("Shutdowning NetworkManager");
 		networkManager.shutdown();
 
@@ -180,6 +227,44 @@ public class Main {
 		System.exit(0);
 	}
 
+	/**
+	 * Read a value from the properties file
+	 * 
+	 * @param key The key
+	 * @param def The value returned if the key doesn't exist or is empty
+	 * @return The value associated to the key or def
+	 */
+	public String getProperty(String key, String def) {
+		String str = p.getProperty(key);
+		if (str == null || "".equalsIgnoreCase(str.trim()))
+			return def;
+		return str.trim();
+	}
+
+	/**
+	 * Read a positive number from the properties file
+	 * 
+	 * @param key The key
+	 * @param def The value returned if the key doesn't exist or is not a valid
+	 *            number
+	 * @return The value associated to the key or def
+	 */
+	public int getIntProperty(String key, int def) {
+		String str = p.getProperty(key);
+		if (str == null || "".equalsIgnoreCase(str.trim()))
+			return def;
+		try {
+			int value = Integer.parseInt(str.trim());
+			if (value > 0)
+				return value;
+		} catch (NumberFormatException ex) {
+			// Handled below
+		}
+		LOG.error("{} is not a valid number: {}", key, str);
+		LOG.info("Using default {} ({})", key, def);
+		return def;
+	}
+
 	public static Main get() {
 		return INSTANCE;
 	}
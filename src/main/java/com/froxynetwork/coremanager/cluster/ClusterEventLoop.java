@@ -0,0 +1,155 @@
+package com.froxynetwork.coremanager.cluster;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Single thread that applies every mutation of the cluster state (servers, temp
+ * servers, VPS and WebSocket links)<br />
+ * Mutations are submitted through a bounded {@link RingBuffer}, so producers
+ * never take a lock. If the buffer is full, producers wait until there is room
+ * for their event<br />
+ * Mutations submitted from the event loop thread are directly executed
+ */
+public class ClusterEventLoop {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+
+	private RingBuffer<Runnable> buffer;
+	private Thread thread;
+	private volatile boolean parked;
+	private volatile boolean stop;
+	/**
+	 * Number of executed events (only written by the event loop thread)
+	 */
+	private volatile long processed;
+
+	/**
+	 * @param capacity The maximum number of pending events
+	 */
+	public ClusterEventLoop(int capacity) {
+		this.buffer = new RingBuffer<>(capacity);
+		this.parked = false;
+		this.stop = false;
+		this.processed = 0;
+		this.thread = new Thread(() -> {
+			while (!stop) {
+				Runnable r = buffer.poll();
+				if (r == null) {
+					// Sleep until a new event is submitted
+					parked = true;
+					if (buffer.isEmpty() && !stop)
+						LockSupport.park();
+					parked = false;
+					continue;
+				}
+				try {
+					r.run();
+				} catch (Throwable t) {
+					// This is the only thread applying mutations, it must never die
+					LOG.error("", t);
+				}
+				processed++;
+			}
+		}, "CoreManager - Cluster");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * @return true if the current thread is the event loop thread
+	 */
+	public boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Execute a mutation on the event loop thread. If the current thread is the
+	 * event loop thread, the mutation is directly executed
+	 * 
+	 * @param r The mutation
+	 */
+	public void execute(Runnable r) {
+		if (inEventLoop()) {
+			r.run();
+			return;
+		}
+		while (!buffer.offer(r)) {
+			// Buffer is full, wait for the event loop
+			if (stop || !thread.isAlive())
+				throw new IllegalStateException("ClusterEventLoop is stopped");
+			LockSupport.unpark(thread);
+			Thread.yield();
+		}
+		// offer() ends with a volatile write, so this read can't see an old value
+		// while the event loop misses the event before parking
+		if (parked)
+			LockSupport.unpark(thread);
+	}
+
+	/**
+	 * Execute an action on the event loop thread and return its result. As all
+	 * mutations are executed on this thread, the action sees a consistent state
+	 * 
+	 * @param action The action
+	 * @return A future completed with the result of the action
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> action) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		execute(() -> {
+			try {
+				future.complete(action.get());
+			} catch (Exception ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * @return The number of events waiting to be executed
+	 */
+	public int getPending() {
+		return buffer.size();
+	}
+
+	/**
+	 * @return The number of executed events
+	 */
+	public long getProcessed() {
+		return processed;
+	}
+
+	public void stop() {
+		stop = true;
+		LockSupport.unpark(thread);
+	}
+}
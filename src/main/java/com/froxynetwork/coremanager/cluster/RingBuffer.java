@@ -0,0 +1,140 @@
+package com.froxynetwork.coremanager.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Bounded lock-free queue backed by an array whose size is a power of two<br />
+ * Any number of threads can call {@link #offer(Object)} but only one thread can
+ * call {@link #poll()}<br />
+ * Each slot has a sequence number telling if the slot is free for the producer
+ * of a specific position or filled for the consumer of a specific position
+ */
+public class RingBuffer<E> {
+	private Object[] buffer;
+	private AtomicLongArray sequences;
+	private int mask;
+	/**
+	 * Next position to fill (shared by producers)
+	 */
+	private AtomicLong tail;
+	/**
+	 * Next position to read (only written by the consumer)
+	 */
+	private volatile long head;
+
+	/**
+	 * @param capacity The minimum capacity, rounded up to the next power of two
+	 */
+	public RingBuffer(int capacity) {
+		if (capacity <= 0 || capacity > (1 << 30))
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+		this.buffer = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			sequences.set(i, i);
+		this.mask = size - 1;
+		this.tail = new AtomicLong();
+		this.head = 0;
+	}
+
+	/**
+	 * Add an element at the end of this queue. Can be called from any thread
+	 * 
+	 * @param e The element
+	 * @return false if this queue is full
+	 */
+	public boolean offer(E e) {
+		if (e == null)
+			throw new NullPointerException();
+		long pos;
+		int index;
+		while (true) {
+			pos = tail.get();
+			index = (int) (pos & mask);
+			long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1))
+					break;
+			} else if (diff < 0) {
+				// The consumer didn't read this slot yet
+				return false;
+			}
+			// Another producer took this position, retry
+		}
+		buffer[index] = e;
+		// Publish the element. This must be a volatile write and not a lazySet: the
+		// caller may read a volatile flag right after (see ClusterEventLoop#execute)
+		// and a lazySet can be reordered after this read
+		sequences.set(index, pos + 1);
+		return true;
+	}
+
+	/**
+	 * Remove the first element of this queue. Must only be called by the consumer
+	 * thread
+	 * 
+	 * @return The first element or null if this queue is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long pos = head;
+		int index = (int) (pos & mask);
+		if (sequences.get(index) != pos + 1)
+			return null;
+		E e = (E) buffer[index];
+		buffer[index] = null;
+		// Free this slot for the producer of the next round
+		sequences.lazySet(index, pos + mask + 1);
+		head = pos + 1;
+		return e;
+	}
+
+	/**
+	 * @return true if there is no element to read. Must only be called by the
+	 *         consumer thread
+	 */
+	public boolean isEmpty() {
+		long pos = head;
+		return sequences.get((int) (pos & mask)) != pos + 1;
+	}
+
+	/**
+	 * @return An estimation of the number of elements in this queue
+	 */
+	public int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+}
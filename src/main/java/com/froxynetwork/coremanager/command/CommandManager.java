@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.cluster.ClusterEventLoop;
 import com.froxynetwork.coremanager.server.VPS;
 import com.froxynetwork.coremanager.server.config.ServerConfig;
 import com.froxynetwork.froxynetwork.network.output.RestException;
@@ -128,17 +129,31 @@ public class CommandManager {
 			LOG.info("Number of types: {}", serverConfigs.size());
 			for (ServerConfig sc : serverConfigs)
 				LOG.info("- Type: {}, database: {}", sc.getType(), sc.getDatabase());
-			List<VPS> vpss = Main.get().getServerManager().getVps();
-			LOG.info("Number of vps: {}", vpss.size());
-			for (VPS vps : vpss)
-				LOG.info("- Id: {}, MaxServers: {}, connected: {}", vps.getId(), vps.getMaxServers(),
-						vps.isLinked() ? "Yes" : "No");
+			ClusterEventLoop loop = Main.get().getClusterEventLoop();
+			LOG.info("Cluster events: {} processed, {} pending", loop.getProcessed(), loop.getPending());
+			// Read VPS on the event loop to get a consistent snapshot
+			loop.execute(() -> {
+				List<VPS> vpss = Main.get().getServerManager().getVps();
+				LOG.info("Number of vps: {}", vpss.size());
+				for (VPS vps : vpss)
+					LOG.info("- Id: {}, MaxServers: {}, servers: {}, starting: {}, connected: {}, outbound: {} ({} dropped)"
+							+ ", latency: {} ms{}", vps.getId(), vps.getMaxServers(), vps.getServerCount(),
+							vps.getTempServerCount(), vps.isLinked() ? "Yes" : "No", vps.getOutboundDepth(),
+							vps.getOutboundDropped(), vps.getHealth().getLatency(),
+							vps.getHealth().isDegraded() ? " (degraded)" : vps.getHealth().isSlow() ? " (slow)" : "");
+			});
 			return true;
 		} else if ("reload".equalsIgnoreCase(label)) {
 			LOG.info("Reloading servers");
 			try {
 				Main.get().getServerConfigManager().reload(() -> {
-					LOG.info("Server reload done");
+					LOG.info("Server config reload done, reloading VPS");
+					Main.get().getServerManager().reload().whenComplete((summary, t) -> {
+						if (t != null)
+							LOG.error("Error while reloading servers: ", t);
+						else
+							LOG.info("Server reload done ({})", summary);
+					});
 				});
 			} catch (RestException ex) {
 				LOG.error("Error while reloading servers: ", ex);
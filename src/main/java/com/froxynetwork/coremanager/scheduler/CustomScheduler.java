@@ -1,24 +1,25 @@
 package com.froxynetwork.coremanager.scheduler;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import lombok.Getter;
 
 /**
  * MIT License
- *
+ * 
  * Copyright (c) 2020 FroxyNetwork
- *
+ * 
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
  * in the Software without restriction, including without limitation the rights
  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
  * copies of the Software, and to permit persons to whom the Software is
  * furnished to do so, subject to the following conditions:
- *
+ * 
  * The above copyright notice and this permission notice shall be included in
  * all copies or substantial portions of the Software.
- *
+ * 
  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
@@ -33,9 +34,58 @@ import lombok.Getter;
 public class CustomScheduler {
 	private Supplier<Boolean> exec;
 	private Runnable error;
+	private RetryPolicy policy;
+	/**
+	 * Number of executions that have failed
+	 */
+	private int attempts;
+	/**
+	 * When this task must be executed again ({@link System#nanoTime()})
+	 */
+	private long nextFire;
+	/**
+	 * When this task must be abandoned ({@link System#nanoTime()}), only used if
+	 * the policy has a timeout
+	 */
+	private long deadline;
 
 	public CustomScheduler(Supplier<Boolean> exec, Runnable error) {
+		this(exec, error, RetryPolicy.DEFAULT);
+	}
+
+	public CustomScheduler(Supplier<Boolean> exec, Runnable error, RetryPolicy policy) {
 		this.exec = exec;
 		this.error = error;
+		this.policy = policy;
+		this.attempts = 0;
+		long now = System.nanoTime();
+		this.nextFire = now;
+		this.deadline = policy.hasTimeout() ? now + TimeUnit.MILLISECONDS.toNanos(policy.getTimeout()) : 0;
+	}
+
+	/**
+	 * Register a failed execution and compute the next fire time
+	 *
+	 * @param now The current time ({@link System#nanoTime()})
+	 * @return false if this task has reached its maximum attempts or its deadline
+	 */
+	public boolean failed(long now) {
+		attempts++;
+		if (!policy.canRetry(attempts))
+			return false;
+		if (policy.hasTimeout() && now - deadline >= 0)
+			return false;
+		nextFire = now + TimeUnit.MILLISECONDS.toNanos(policy.delay(attempts));
+		if (policy.hasTimeout() && nextFire - deadline > 0)
+			nextFire = deadline;
+		return true;
+	}
+
+	/**
+	 * Call the error action, if any
+	 */
+	public void error() {
+		if (error != null)
+			error.run();
 	}
 }
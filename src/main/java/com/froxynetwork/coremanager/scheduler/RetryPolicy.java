@@ -0,0 +1,103 @@
+package com.froxynetwork.coremanager.scheduler;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2020 FroxyNetwork
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * How a {@link CustomScheduler} is retried: exponential backoff with jitter, a
+ * maximum number of attempts and a deadline
+ */
+@Getter
+@ToString
+public class RetryPolicy {
+	/**
+	 * Retry forever, starting at 1 second and backing off to 10 seconds
+	 */
+	public static final RetryPolicy DEFAULT = new RetryPolicy(1000, 10000, 2, 0.2, -1, -1);
+
+	private long initialDelay;
+	private long maxDelay;
+	private double multiplier;
+	private double jitter;
+	private int maxAttempts;
+	private long timeout;
+
+	/**
+	 * @param initialDelay The delay (in ms) before the first retry
+	 * @param maxDelay     The maximum delay (in ms) between two retries
+	 * @param multiplier   The factor applied to the delay after each failure
+	 * @param jitter       The random part of the delay (0.2 = +/- 20%)
+	 * @param maxAttempts  The maximum number of attempts or -1 for no limit
+	 * @param timeout      The time (in ms) after which we give up or -1 for no
+	 *                     limit
+	 */
+	public RetryPolicy(long initialDelay, long maxDelay, double multiplier, double jitter, int maxAttempts,
+			long timeout) {
+		if (initialDelay <= 0 || maxDelay < initialDelay)
+			throw new IllegalArgumentException("Invalid delays: initialDelay = " + initialDelay + ", maxDelay = "
+					+ maxDelay);
+		if (multiplier < 1)
+			throw new IllegalArgumentException("multiplier must be >= 1");
+		if (jitter < 0 || jitter >= 1)
+			throw new IllegalArgumentException("jitter must be between 0 (included) and 1 (excluded)");
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.multiplier = multiplier;
+		this.jitter = jitter;
+		this.maxAttempts = maxAttempts;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Return the delay to wait before the next attempt
+	 *
+	 * @param attempts The number of attempts that have already failed (>= 1)
+	 * @return The delay in ms
+	 */
+	public long delay(int attempts) {
+		double d = initialDelay * Math.pow(multiplier, Math.max(0, attempts - 1));
+		long delay = (long) Math.min(d, maxDelay);
+		if (jitter > 0)
+			delay += (long) (delay * jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+		return Math.max(1, delay);
+	}
+
+	/**
+	 * @param attempts The number of attempts that have already been executed
+	 * @return true if another attempt is allowed
+	 */
+	public boolean canRetry(int attempts) {
+		return maxAttempts <= 0 || attempts < maxAttempts;
+	}
+
+	public boolean hasTimeout() {
+		return timeout > 0;
+	}
+}
@@ -1,9 +1,16 @@
 package com.froxynetwork.coremanager.scheduler;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 /**
  * MIT License
  *
@@ -30,19 +37,35 @@ import java.util.function.Supplier;
  * @author 0ddlyoko
  */
 /**
- * Execute an action every seconds until the action has been correctly executed
+ * Execute an action until the action has been correctly executed.<br />
+ * Each action has its own next fire time computed by its {@link RetryPolicy}
+ * (exponential backoff with jitter, maximum attempts and deadline). Pending
+ * actions are kept in a heap ordered by next fire time so the Scheduler thread
+ * sleeps until the first action is due and only executes due actions.<br />
+ * Actions are submitted through a lock-free queue that is drained in batches by
+ * the Scheduler thread, which is the only one that touches the heap
  */
 public class Scheduler {
-	private static List<CustomScheduler> execute;
+	private static final Logger LOG = LoggerFactory.getLogger(Scheduler.class);
+	/**
+	 * Maximum number of submitted actions moved to the heap at once
+	 */
+	private static final int BATCH = 1024;
+	private static ConcurrentLinkedQueue<CustomScheduler> submissions;
+	// Only used by the Scheduler thread
+	private static PriorityQueue<CustomScheduler> execute;
+	private static volatile int executeSize;
 	private static Thread runnable;
-	private static boolean stop = false;
+	private static volatile boolean parked = false;
+	private static volatile boolean stop = false;
 
 	static {
 		start();
 	}
 
 	/**
-	 * Execute an action every seconds until the action is correctly executed.<br />
+	 * Execute an action until the action is correctly executed, using
+	 * {@link RetryPolicy#DEFAULT}.<br />
 	 * If Scheduler is stopped (by a reload or something else), error is
 	 * called<br />
 	 * When you call this method, the action is directly executed and saved if the
@@ -52,52 +75,149 @@ public class Scheduler {
 	 * @param error The action to execute if Scheduler is stopped
 	 */
 	public static void add(Supplier<Boolean> exec, Runnable error) {
+		add(exec, error, RetryPolicy.DEFAULT);
+	}
+
+	/**
+	 * Execute an action until the action is correctly executed.<br />
+	 * If Scheduler is stopped (by a reload or something else) or if the action
+	 * has reached the maximum attempts or the deadline of the policy, error is
+	 * called<br />
+	 * When you call this method, the action is directly executed and saved if the
+	 * action fail<br />
+	 * This method can be called from any thread
+	 * 
+	 * @param exec   The action to execute
+	 * @param error  The action to execute if Scheduler is stopped or if the
+	 *               action has been abandoned
+	 * @param policy The retry policy
+	 */
+	public static void add(Supplier<Boolean> exec, Runnable error, RetryPolicy policy) {
+		CustomScheduler cs = new CustomScheduler(exec, error, policy);
 		boolean b = exec.get();
 		if (!b)
-			execute.add(new CustomScheduler(exec, error));
+			retry(cs);
+	}
+
+	/**
+	 * Register a failure and save the action if it can be executed again, or call
+	 * its error
+	 */
+	private static void retry(CustomScheduler cs) {
+		if (!cs.failed(System.nanoTime())) {
+			LOG.debug("Abandoning scheduled action after {} attempts", cs.getAttempts());
+			error(cs);
+			return;
+		}
+		if (stop) {
+			error(cs);
+			return;
+		}
+		if (Thread.currentThread() == runnable) {
+			// We're the owner of the heap
+			execute.add(cs);
+			executeSize = execute.size();
+			return;
+		}
+		submissions.offer(cs);
+		if (parked)
+			LockSupport.unpark(runnable);
+		// Scheduler has been stopped while we were adding this action
+		if (stop && submissions.remove(cs))
+			error(cs);
+	}
+
+	/**
+	 * Move at most {@link #BATCH} submitted actions to the heap
+	 * 
+	 * @return true if there are still submitted actions
+	 */
+	private static boolean drain() {
+		CustomScheduler cs;
+		for (int i = 0; i < BATCH && (cs = submissions.poll()) != null; i++)
+			execute.add(cs);
+		executeSize = execute.size();
+		return !submissions.isEmpty();
 	}
 
 	public static void start() {
 		// Avoid starting when already running
 		if (stop)
 			return;
-		execute = new ArrayList<>();
+		submissions = new ConcurrentLinkedQueue<>();
+		execute = new PriorityQueue<>(Comparator.comparingLong(CustomScheduler::getNextFire));
 		runnable = new Thread(() -> {
+			List<CustomScheduler> due = new ArrayList<>();
 			while (!stop) {
-				try {
-					Thread.sleep(1000);
-				} catch (InterruptedException ex) {
-					break;
+				boolean more = drain();
+				long now = System.nanoTime();
+				CustomScheduler head;
+				while ((head = execute.peek()) != null && head.getNextFire() - now <= 0)
+					due.add(execute.poll());
+				executeSize = execute.size();
+				if (due.isEmpty() && !more) {
+					// Sleep until the first action is due or until a new action is submitted
+					parked = true;
+					if (submissions.isEmpty() && !stop) {
+						if (head == null)
+							LockSupport.park();
+						else
+							LockSupport.parkNanos(head.getNextFire() - now);
+					}
+					parked = false;
+					if (Thread.interrupted())
+						break;
+					continue;
 				}
-				// To avoid ConcurrentModificationException
-				List<CustomScheduler> copy = new ArrayList<>(execute);
-				execute = new ArrayList<>();
-				for (CustomScheduler cs : copy)
+				for (CustomScheduler cs : due)
 					try {
 						if (!cs.getExec().get())
-							execute.add(cs);
+							retry(cs);
 					} catch (Exception ex) {
-						ex.printStackTrace();
+						LOG.error("", ex);
+						retry(cs);
 					}
+				due.clear();
 			}
-		});
+		}, "CoreManager - Scheduler");
 		runnable.start();
 	}
 
+	private static void error(CustomScheduler cs) {
+		try {
+			cs.error();
+		} catch (Exception ex) {
+			// Empty exception
+		}
+	}
+
 	/**
 	 * Stop this Scheduler and call errors for each remaining schedulers
 	 */
 	public static void stop() {
 		stop = true;
-		if (runnable.isAlive())
+		if (runnable.isAlive()) {
 			runnable.interrupt();
-		for (CustomScheduler cs : execute)
-			if (cs.getError() != null)
-				try {
-					cs.getError().run();
-				} catch (Exception ex) {
-					// Empty exception
-				}
+			try {
+				runnable.join(1000);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		List<CustomScheduler> remaining = new ArrayList<>(execute);
 		execute.clear();
+		executeSize = 0;
+		CustomScheduler cs;
+		while ((cs = submissions.poll()) != null)
+			remaining.add(cs);
+		for (CustomScheduler c : remaining)
+			error(c);
+	}
+
+	/**
+	 * @return The number of actions waiting to be executed again
+	 */
+	public static int size() {
+		return executeSize + submissions.size();
 	}
 }
@@ -0,0 +1,141 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.websocket.protocol.SharedCommand;
+
+import lombok.Getter;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Collect "register" and "unregister" notifications during a short window and
+ * send them to each VPS in one "batch" message<br />
+ * Each line of a batch is a notification ("&lt;channel&gt; &lt;message&gt;").
+ * VPS that didn't announce the "batch" capability (see
+ * {@link VPS#hasCapability(String)}) receive one message per notification<br />
+ * Each message is encoded once and shared by all VPS (see
+ * {@link SharedCommand})
+ */
+public class BroadcastChannel {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	/**
+	 * Capability announced by VPS that understand "batch" messages
+	 */
+	public static final String BATCH = "batch";
+
+	private ConcurrentLinkedQueue<String[]> events;
+	private AtomicBoolean scheduled;
+	private ScheduledExecutorService executor;
+	/**
+	 * Time (in ms) notifications are collected before being sent
+	 */
+	@Getter
+	private long window;
+
+	public BroadcastChannel(long window) {
+		this.events = new ConcurrentLinkedQueue<>();
+		this.scheduled = new AtomicBoolean(false);
+		this.window = window;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "CoreManager - Broadcast");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Send a notification to all VPS at the end of the current window
+	 * 
+	 * @param channel The channel
+	 * @param message The message
+	 */
+	public void publish(String channel, String message) {
+		events.add(new String[] { channel, message });
+		if (scheduled.compareAndSet(false, true))
+			executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Send all collected notifications
+	 */
+	private void flush() {
+		// Notifications published from now are sent by the next flush
+		scheduled.set(false);
+		List<String[]> batch = new ArrayList<>();
+		String[] event;
+		while ((event = events.poll()) != null)
+			batch.add(event);
+		if (batch.isEmpty())
+			return;
+		StringBuilder sb = new StringBuilder();
+		for (String[] e : batch) {
+			if (sb.length() > 0)
+				sb.append('\n');
+			sb.append(e[0]).append(' ').append(e[1]);
+		}
+		SharedCommand payload = new SharedCommand(BATCH, sb.toString());
+		// Only created if a VPS doesn't understand batches
+		SharedCommand[] single = null;
+		LOG.debug("Broadcasting {} notifications", batch.size());
+		for (VPS vps : Main.get().getServerManager().getVps()) {
+			try {
+				if (vps.hasCapability(BATCH)) {
+					vps.sendMessage(payload);
+				} else {
+					if (single == null) {
+						single = new SharedCommand[batch.size()];
+						for (int i = 0; i < single.length; i++)
+							single[i] = new SharedCommand(batch.get(i)[0], batch.get(i)[1]);
+					}
+					for (SharedCommand command : single)
+						vps.sendMessage(command);
+				}
+			} catch (Exception ex) {
+				LOG.error("Error while broadcasting to vps {}", vps.getId());
+				LOG.error("", ex);
+			}
+		}
+	}
+
+	/**
+	 * Stop this channel and send remaining notifications
+	 */
+	public void stop() {
+		executor.shutdownNow();
+		flush();
+	}
+}
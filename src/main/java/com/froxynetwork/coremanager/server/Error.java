@@ -29,7 +29,8 @@ public enum Error {
 	TYPENOTFOUND(1, "Type {} doesn't exist"), //
 	FULL(2, "Cannot find an optimal VPS to open a server with type = {}"), //
 	NOTCONNECTED(3, "VPS {} is not connected via WebSocket"), //
-	UNKNOWN(4, "Unknown error for VPS {}");
+	UNKNOWN(4, "Unknown error for VPS {}"), //
+	RATELIMITED(5, "VPS {} has reached its start rate limit");
 
 	private int id;
 	private String error;
@@ -0,0 +1,149 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Quality of the link with a VPS, measured with "ping" / "pong" messages<br />
+ * A link is degraded once "heartbeat_missed" pings in a row are not answered,
+ * and is slow while its average round-trip time is above
+ * "heartbeat_slow_latency" ms<br />
+ * Only agents that have announced the "heartbeat" capability are pinged
+ */
+public class LinkHealth {
+	/**
+	 * Capability announced by agents that answer "ping" messages
+	 */
+	public static final String CAPABILITY = "heartbeat";
+	/**
+	 * Weight of the last measure in the average round-trip time
+	 */
+	private static final double ALPHA = 0.2;
+
+	private int maxMissed;
+	private long slowLatency;
+	private long pingId;
+	private long pingSent;
+	private boolean waiting;
+	private int missed;
+	/**
+	 * Last round-trip time in ms, 0 if unknown
+	 */
+	private volatile long rtt;
+	/**
+	 * Average round-trip time in ms, 0 if unknown
+	 */
+	private volatile double latency;
+	private volatile boolean degraded;
+	private volatile boolean slow;
+
+	/**
+	 * @param maxMissed   The number of unanswered pings in a row after which the
+	 *                    link is degraded
+	 * @param slowLatency The average round-trip time (in ms) above which the link
+	 *                    is slow
+	 */
+	public LinkHealth(int maxMissed, long slowLatency) {
+		this.maxMissed = maxMissed;
+		this.slowLatency = slowLatency;
+		reset();
+	}
+
+	/**
+	 * Forget all measures, called when the VPS is linked or unlinked
+	 */
+	public synchronized void reset() {
+		waiting = false;
+		missed = 0;
+		rtt = 0;
+		latency = 0;
+		degraded = false;
+		slow = false;
+	}
+
+	/**
+	 * Start a new ping. If the previous ping hasn't been answered, it's counted
+	 * as missed
+	 * 
+	 * @return The id of the new ping
+	 */
+	public synchronized long ping() {
+		if (waiting) {
+			missed++;
+			degraded = missed >= maxMissed;
+		}
+		waiting = true;
+		pingSent = System.nanoTime();
+		return ++pingId;
+	}
+
+	/**
+	 * Register the answer of a ping
+	 * 
+	 * @param id       The id of the ping
+	 * @param received When the answer has been received ({@link System#nanoTime()})
+	 * @return false if this answer doesn't match the last ping
+	 */
+	public synchronized boolean pong(long id, long received) {
+		if (!waiting || id != pingId)
+			return false;
+		waiting = false;
+		missed = 0;
+		degraded = false;
+		rtt = TimeUnit.NANOSECONDS.toMillis(received - pingSent);
+		latency = latency == 0 ? rtt : latency + ALPHA * (rtt - latency);
+		slow = latency > slowLatency;
+		return true;
+	}
+
+	/**
+	 * @return A number that changes each time the link becomes degraded, slow or
+	 *         healthy
+	 */
+	public int state() {
+		return (degraded ? 1 : 0) | (slow ? 2 : 0);
+	}
+
+	public boolean isDegraded() {
+		return degraded;
+	}
+
+	public boolean isSlow() {
+		return slow;
+	}
+
+	public long getRtt() {
+		return rtt;
+	}
+
+	/**
+	 * @return The average round-trip time in ms, 0 if unknown
+	 */
+	public long getLatency() {
+		return (long) latency;
+	}
+}
@@ -0,0 +1,531 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.websocket.protocol.SharedCommand;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Ordered queue of messages sent to a VPS<br />
+ * Messages are sent in the order they have been queued by at most one flush at
+ * a time, and stay in the queue while the VPS is not linked. A flush sends at
+ * most "outbound_batch" messages before letting other VPS flush.<br />
+ * Superseded messages are merged before being sent:
+ * <ul>
+ * <li>A message is not queued twice if it's the last waiting message for the
+ * same server. Only "start", "stop", "register" and "unregister" are merged,
+ * "batch" and "resync" messages are always queued</li>
+ * <li>"unregister &lt;id&gt;" removes a waiting "register &lt;id&gt;"</li>
+ * <li>"stop &lt;id&gt;" removes a waiting "start &lt;id&gt;", the stop is then
+ * not sent as the server has never been started</li>
+ * </ul>
+ * Once the queue holds "outbound_high_water" messages, new "register" and
+ * "unregister" notifications are dropped. Other messages are always queued.
+ * Once the queue is below this limit again, a "resync" is sent so that the
+ * agent can recover the dropped notifications (only if the agent has announced
+ * the "resync" capability)<br />
+ * <br />
+ * If the agent has announced the "seq" capability, each message is sent as
+ * "seq &lt;n&gt; &lt;channel&gt; &lt;message&gt;" where n is increased for each
+ * new message of this VPS, and is kept until the agent acknowledges it ("ack
+ * &lt;n&gt;"). Numbers belong to a session: "session &lt;id&gt;" is sent before
+ * the first numbered message of a session, and the agent restarts its
+ * numbering at 1. Once such an agent is unlinked, this queue is held until the
+ * agent sends "resume &lt;session id&gt; &lt;last acked n&gt;" on its new link
+ * (or until "resume_timeout" ms), then unacknowledged messages are sent again
+ * before new ones. If the session is unknown (e.g. the CoreManager has
+ * restarted), a new session is started and unacknowledged messages are
+ * renumbered. At most "replay_buffer_size" messages are kept. Capabilities are
+ * reset on each link, but an agent that resumes its session keeps using
+ * sequence numbers even if its "capabilities" request comes after its "resume"
+ */
+public class OutboundQueue {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	/**
+	 * Delay (in ms) before flushing again after a failure
+	 */
+	private static final long RETRY_DELAY = 1000;
+	/**
+	 * Capability announced by agents that acknowledge messages
+	 */
+	public static final String SEQ = "seq";
+	/**
+	 * Capability announced by agents that understand "resync" messages
+	 */
+	public static final String RESYNC = "resync";
+	/**
+	 * Channel used to announce a new session
+	 */
+	public static final String SESSION = "session";
+
+	private VPS vps;
+	private ScheduledExecutorService executor;
+	private int highWater;
+	private int batch;
+	private ArrayDeque<Message> queue;
+	private AtomicBoolean scheduled;
+	/**
+	 * Number of notifications dropped because the queue was full
+	 */
+	private AtomicLong dropped;
+	private boolean full;
+	/**
+	 * true if notifications have been dropped since the last "resync"
+	 */
+	private boolean resync;
+	/**
+	 * Sent messages that are not acknowledged yet, by sequence number
+	 */
+	private ArrayDeque<Message> unacked;
+	private int replaySize;
+	private long resumeTimeout;
+	private long nextSeq;
+	/**
+	 * true if the last link of this VPS has used sequence numbers
+	 */
+	private boolean session;
+	/**
+	 * Id of the current session, random so that sessions of a previous
+	 * CoreManager are not resumed
+	 */
+	private String sessionId;
+	/**
+	 * true once the id of the current session has been sent to the agent
+	 */
+	private boolean announced;
+	/**
+	 * true while waiting for the "resume" of the agent
+	 */
+	private boolean holding;
+	/**
+	 * true if the agent has resumed its session on the current link
+	 */
+	private volatile boolean resumed;
+
+	public OutboundQueue(VPS vps, ScheduledExecutorService executor, int highWater, int batch, int replaySize,
+			long resumeTimeout) {
+		this.vps = vps;
+		this.executor = executor;
+		this.highWater = highWater;
+		this.batch = batch;
+		this.replaySize = replaySize;
+		this.resumeTimeout = resumeTimeout;
+		this.unacked = new ArrayDeque<>();
+		this.nextSeq = 1;
+		this.session = false;
+		this.sessionId = UUID.randomUUID().toString();
+		this.announced = false;
+		this.holding = false;
+		this.resumed = false;
+		this.queue = new ArrayDeque<>();
+		this.scheduled = new AtomicBoolean(false);
+		this.dropped = new AtomicLong();
+		this.full = false;
+		this.resync = false;
+	}
+
+	/**
+	 * Queue a message and flush the queue if the VPS is linked
+	 * 
+	 * @param channel The channel
+	 * @param message The message
+	 */
+	public void add(String channel, String message) {
+		add(channel, message, null);
+	}
+
+	/**
+	 * Queue a message and flush the queue if the VPS is linked
+	 * 
+	 * @param channel The channel
+	 * @param message The message
+	 * @param sent    Called with the WebSocket once the message has been sent,
+	 *                and with null if it has to be sent again (see
+	 *                {@link #resume(long)})
+	 */
+	public void add(String channel, String message, Consumer<WebSocketServerImpl> sent) {
+		add(new Message(channel, message, sent));
+	}
+
+	/**
+	 * Queue a command shared by many VPS and flush the queue if the VPS is linked.
+	 * Without sequence numbers, the encoded command is shared with the other VPS
+	 * 
+	 * @param command The command
+	 */
+	public void add(SharedCommand command) {
+		Message msg = new Message(command.getChannel(), command.getMessage(), null);
+		msg.shared = command;
+		add(msg);
+	}
+
+	private void add(Message msg) {
+		synchronized (queue) {
+			if (merge(msg))
+				return;
+			if (queue.size() >= highWater && msg.isNotification()) {
+				dropped.incrementAndGet();
+				resync = true;
+				if (!full) {
+					full = true;
+					LOG.warn("Outbound queue of vps {} is full ({} messages), dropping notifications", vps.getId(),
+							queue.size());
+				}
+				return;
+			}
+			queue.add(msg);
+		}
+		flush();
+	}
+
+	/**
+	 * Remove waiting messages superseded by msg
+	 * 
+	 * @return true if msg must not be queued
+	 */
+	private boolean merge(Message msg) {
+		String superseded = null;
+		if ("unregister".equals(msg.channel))
+			superseded = "register";
+		else if ("stop".equals(msg.channel))
+			superseded = "start";
+		// Not about a single server
+		if (msg.key == null)
+			return false;
+		// Last waiting message for the same server, once superseded messages are removed
+		Message last = null;
+		Iterator<Message> it = queue.iterator();
+		while (it.hasNext()) {
+			Message m = it.next();
+			// Don't merge messages that may have been received by the agent
+			if (m.seq != 0 || m.key == null)
+				continue;
+			if (superseded != null && superseded.equals(m.channel) && msg.key.equals(m.key)) {
+				it.remove();
+				// The server has never been started, no need to stop it
+				if ("stop".equals(msg.channel))
+					return true;
+				continue;
+			}
+			if (msg.key.equals(m.key))
+				last = m;
+		}
+		// Only skip msg if it doesn't change the last state of this server
+		return last != null && last.channel.equals(msg.channel) && last.message.equals(msg.message);
+	}
+
+	/**
+	 * Send waiting messages on another thread, if the VPS is linked
+	 */
+	public void flush() {
+		if (!vps.isLinked())
+			return;
+		synchronized (queue) {
+			if (holding)
+				return;
+		}
+		if (scheduled.compareAndSet(false, true))
+			executor.execute(this::send);
+	}
+
+	private void send() {
+		WebSocketServerImpl ws = vps.getWebSocket();
+		List<Message> messages = new ArrayList<>(batch);
+		synchronized (queue) {
+			for (int i = 0; i < batch && !queue.isEmpty(); i++)
+				messages.add(queue.poll());
+		}
+		int sent = 0;
+		if (ws != null && ws.isConnected() && ws.isAuthenticated()) {
+			boolean seq = resumed || vps.hasCapability(SEQ);
+			for (Message msg : messages) {
+				try {
+					if (seq) {
+						String announce;
+						synchronized (queue) {
+							announce = announced ? null : sessionId;
+						}
+						if (announce != null) {
+							ws.sendCommand(SESSION, announce);
+							synchronized (queue) {
+								announced = true;
+							}
+						}
+						synchronized (queue) {
+							if (msg.seq == 0)
+								msg.seq = nextSeq++;
+						}
+						ws.sendCommand(SEQ, msg.seq + " " + msg.channel + " " + msg.message);
+						synchronized (queue) {
+							unacked.add(msg);
+							if (unacked.size() > replaySize)
+								unacked.poll();
+							session = true;
+						}
+					} else if (msg.shared != null) {
+						msg.shared.send(ws);
+					} else {
+						ws.sendCommand(msg.channel, msg.message);
+					}
+					if (msg.sent != null)
+						msg.sent.accept(ws);
+				} catch (Exception ex) {
+					LOG.error("Error while sending a message to VPS {} with channel {}", vps.getId(), msg.channel);
+					LOG.error("", ex);
+					break;
+				}
+				sent++;
+			}
+		}
+		boolean retry;
+		synchronized (queue) {
+			// Put back unsent messages at the head, in the same order
+			for (int i = messages.size() - 1; i >= sent; i--)
+				queue.addFirst(messages.get(i));
+			if (queue.size() < highWater) {
+				full = false;
+				if (resync) {
+					// Dropped notifications can't be sent again, the agent has to resync
+					resync = false;
+					if (vps.hasCapability(RESYNC)) {
+						LOG.warn("Outbound queue of vps {} is not full anymore, asking a resync", vps.getId());
+						queue.add(new Message(RESYNC, "", null));
+					} else {
+						LOG.error("Outbound queue of vps {} is not full anymore but it can't resync, {} notifications lost",
+								vps.getId(), dropped.get());
+					}
+				}
+			}
+			retry = sent < messages.size();
+		}
+		scheduled.set(false);
+		if (retry) {
+			// Not linked anymore or sending failed, the link flushes this queue again
+			if (vps.isLinked())
+				executor.schedule(this::flush, RETRY_DELAY, TimeUnit.MILLISECONDS);
+		} else if (!isEmpty()) {
+			flush();
+		}
+	}
+
+	public boolean isEmpty() {
+		synchronized (queue) {
+			return queue.isEmpty();
+		}
+	}
+
+	/**
+	 * @return The number of messages waiting to be sent
+	 */
+	public int size() {
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
+	/**
+	 * Remove acknowledged messages from the replay buffer
+	 * 
+	 * @param seq The last sequence number received by the agent
+	 */
+	public void ack(long seq) {
+		synchronized (queue) {
+			while (!unacked.isEmpty() && unacked.peek().seq <= seq)
+				unacked.poll();
+		}
+	}
+
+	/**
+	 * Called when the VPS is unlinked: if the agent used sequence numbers, hold
+	 * this queue until it resumes its session
+	 */
+	public void onUnlink() {
+		synchronized (queue) {
+			holding = session;
+			resumed = false;
+			if (holding) {
+				// Unacknowledged messages will be sent again once resumed
+				for (Message msg : unacked)
+					if (msg.sent != null)
+						msg.sent.accept(null);
+			}
+		}
+	}
+
+	/**
+	 * Called when the VPS is linked: stop holding this queue if the agent doesn't
+	 * resume its session in time
+	 */
+	public void onLink() {
+		synchronized (queue) {
+			if (!holding)
+				return;
+		}
+		executor.schedule(() -> {
+			synchronized (queue) {
+				if (!holding)
+					return;
+				LOG.warn("VPS {} didn't resume its session, dropping {} unacknowledged messages", vps.getId(),
+						unacked.size());
+				holding = false;
+				unacked.clear();
+				newSession();
+			}
+			flush();
+		}, resumeTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Called by the "resume" request: send again all messages that the agent
+	 * didn't receive, then continue with waiting messages
+	 * 
+	 * @param id  The id of the session
+	 * @param seq The last sequence number received by the agent
+	 * @return false if some messages can't be sent again because they have been
+	 *         removed from the replay buffer, or if the session is unknown
+	 */
+	public boolean resume(String id, long seq) {
+		boolean lossless;
+		int replayed;
+		synchronized (queue) {
+			boolean known = holding && sessionId.equals(id) && seq < nextSeq;
+			holding = false;
+			resumed = true;
+			if (known) {
+				ack(seq);
+				lossless = unacked.isEmpty() ? seq == nextSeq - 1 : unacked.peek().seq == seq + 1;
+			} else {
+				// Messages received by the agent are unknown, renumber unacknowledged
+				// messages in a new session
+				lossless = false;
+				for (Message msg : unacked)
+					msg.seq = 0;
+				newSession();
+			}
+			replayed = unacked.size();
+			// Put back unacknowledged messages at the head, in the same order
+			while (!unacked.isEmpty())
+				queue.addFirst(unacked.pollLast());
+		}
+		if (lossless)
+			LOG.info("VPS {} resumed its session at {}, sending again {} messages", vps.getId(), seq, replayed);
+		else
+			LOG.warn("VPS {} resumed an unknown session {} at {}, sending again {} messages in a new session",
+					vps.getId(), id, seq, replayed);
+		flush();
+		return lossless;
+	}
+
+	/**
+	 * Start a new session, the agent restarts its numbering once it gets the id
+	 * of this session
+	 */
+	private void newSession() {
+		session = false;
+		sessionId = UUID.randomUUID().toString();
+		announced = false;
+		nextSeq = 1;
+	}
+
+	/**
+	 * @return The id of the current session
+	 */
+	public String getSession() {
+		synchronized (queue) {
+			return sessionId;
+		}
+	}
+
+	/**
+	 * @return The number of notifications dropped because the queue was full
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Remove all waiting messages
+	 */
+	public void clear() {
+		synchronized (queue) {
+			queue.clear();
+			unacked.clear();
+			resync = false;
+		}
+	}
+
+	private static class Message {
+		private String channel;
+		private String message;
+		/**
+		 * The first word of the message (id or uuid of the server), null if this
+		 * message isn't about a single server
+		 */
+		private String key;
+		/**
+		 * The sequence number of this message once it has been sent, 0 otherwise
+		 */
+		private long seq;
+		private Consumer<WebSocketServerImpl> sent;
+		/**
+		 * The encoded command if this message is sent to many VPS, null otherwise
+		 */
+		private SharedCommand shared;
+
+		private Message(String channel, String message, Consumer<WebSocketServerImpl> sent) {
+			this.channel = channel;
+			this.message = message;
+			this.sent = sent;
+			if (isServer()) {
+				int space = message.indexOf(' ');
+				this.key = space == -1 ? message : message.substring(0, space);
+			}
+		}
+
+		private boolean isServer() {
+			return "start".equals(channel) || "stop".equals(channel) || "register".equals(channel)
+					|| "unregister".equals(channel);
+		}
+
+		private boolean isNotification() {
+			return "register".equals(channel) || "unregister".equals(channel) || BroadcastChannel.BATCH.equals(channel);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.cluster.ClusterEventLoop;
+
+import lombok.Getter;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Run periodic checks of all VPS on a small shared pool of threads<br />
+ * Checks are staggered over the interval so that all VPS are not checked at
+ * the same time. As checks mutate the cluster state, they are executed on the
+ * {@link ClusterEventLoop}
+ */
+public class ReconciliationService {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	/**
+	 * Used to spread the first check of each VPS over the interval
+	 */
+	private static final double GOLDEN_RATIO = 0.6180339887498949;
+
+	private ScheduledExecutorService executor;
+	@Getter
+	private long interval;
+	private AtomicInteger registered;
+
+	/**
+	 * @param threads  The number of threads used to check VPS
+	 * @param interval The delay (in ms) between two checks of the same VPS
+	 */
+	public ReconciliationService(int threads, long interval) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("threads must be positive");
+		if (interval <= 0)
+			throw new IllegalArgumentException("interval must be positive");
+		this.interval = interval;
+		this.registered = new AtomicInteger();
+		AtomicInteger threadId = new AtomicInteger();
+		this.executor = Executors.newScheduledThreadPool(threads, r -> {
+			Thread t = new Thread(r, "CoreManager - Reconciliation #" + threadId.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Periodically call {@link VPS#check()}. The first check happens after one
+	 * interval plus an offset so that consecutive VPS are spread over the
+	 * interval, plus a random delay so that CoreManagers started at the same time
+	 * don't check their VPS together
+	 * 
+	 * @param vps The VPS to check
+	 * @return The task, cancel it to stop checking this VPS
+	 */
+	public ScheduledFuture<?> register(VPS vps) {
+		double position = (registered.getAndIncrement() * GOLDEN_RATIO) % 1;
+		long jitter = ThreadLocalRandom.current().nextLong(Math.max(1, interval / 10));
+		long initialDelay = interval + (long) (position * interval) + jitter;
+		return schedule(() -> vps.check(), initialDelay, "vps " + vps.getId());
+	}
+
+	/**
+	 * Periodically execute an action on the {@link ClusterEventLoop}
+	 * 
+	 * @param action       The action
+	 * @param initialDelay The delay (in ms) before the first execution
+	 * @param name         The name of this action, used in logs
+	 * @return The task, cancel it to stop executing this action
+	 */
+	public ScheduledFuture<?> schedule(Runnable action, long initialDelay, String name) {
+		return executor.scheduleWithFixedDelay(() -> {
+			try {
+				Main.get().getClusterEventLoop().execute(() -> {
+					try {
+						action.run();
+					} catch (Exception ex) {
+						LOG.error("Error while checking {}", name);
+						LOG.error("", ex);
+					}
+				});
+			} catch (Exception ex) {
+				// Catch everything, an exception would cancel the next executions
+				LOG.error("Error while scheduling check of {}", name);
+				LOG.error("", ex);
+			}
+		}, initialDelay, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public void stop() {
+		executor.shutdownNow();
+	}
+}
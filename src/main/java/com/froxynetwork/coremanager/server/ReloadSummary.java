@@ -0,0 +1,61 @@
+package com.froxynetwork.coremanager.server;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Result of {@link ServerManager#reload()}
+ */
+@Getter
+@ToString
+public class ReloadSummary {
+	/**
+	 * Number of servers registered on a VPS
+	 */
+	private int loaded;
+	/**
+	 * Number of servers that are not linked to a valid VPS
+	 */
+	private int orphaned;
+	/**
+	 * Number of orphaned servers that have been deleted
+	 */
+	private int deleted;
+	/**
+	 * Number of orphaned servers that couldn't be deleted plus number of server
+	 * lists that couldn't be fetched
+	 */
+	private int failed;
+
+	public ReloadSummary(int loaded, int orphaned, int deleted, int failed) {
+		this.loaded = loaded;
+		this.orphaned = orphaned;
+		this.deleted = deleted;
+		this.failed = failed;
+	}
+}
@@ -2,6 +2,8 @@ package com.froxynetwork.coremanager.server;
 
 import java.util.Date;
 
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
 import com.froxynetwork.froxynetwork.network.output.data.server.ServerDataOutput;
 import com.froxynetwork.froxynetwork.network.output.data.server.ServerDataOutput.ServerStatus;
 
@@ -37,6 +39,10 @@ public class Server {
 	private String id;
 	private String name;
 	private String type;
+	/**
+	 * Id of the type (see {@link TypeRegistry})
+	 */
+	private int typeId;
 	private VPS vps;
 	private int port;
 	private ServerStatus status;
@@ -47,6 +53,7 @@ public class Server {
 		this.id = restServer.getId();
 		this.name = restServer.getName();
 		this.type = restServer.getType();
+		this.typeId = Main.get().getServerConfigManager().getTypes().register(type);
 		this.vps = vps;
 		this.port = restServer.getPort();
 		this.status = restServer.getStatus();
@@ -54,6 +61,26 @@ public class Server {
 		this.endTime = restServer.getEndTime();
 	}
 
+	/**
+	 * Create a server reported by a VPS but not loaded from REST. The name is the
+	 * id and the port is unknown (0) until the next reload
+	 * 
+	 * @param id   The id of the server
+	 * @param type The type of the server
+	 * @param vps  The VPS running this server
+	 */
+	public Server(String id, String type, VPS vps) {
+		this.id = id;
+		this.name = id;
+		this.type = type;
+		this.typeId = Main.get().getServerConfigManager().getTypes().register(type);
+		this.vps = vps;
+		this.port = 0;
+		this.status = null;
+		this.creationTime = new Date();
+		this.endTime = null;
+	}
+
 	public void setStatus(ServerDataOutput.ServerStatus status) {
 		this.status = status;
 	}
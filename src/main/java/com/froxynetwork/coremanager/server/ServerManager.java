@@ -1,21 +1,42 @@
 package com.froxynetwork.coremanager.server;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.cluster.ClusterEventLoop;
+import com.froxynetwork.coremanager.server.config.ServerConfig;
+import com.froxynetwork.coremanager.server.config.ServerConfigManager;
 import com.froxynetwork.coremanager.server.config.ServerVps;
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
+import com.froxynetwork.coremanager.server.placement.LeastLoadedStrategy;
+import com.froxynetwork.coremanager.server.placement.PlacementStrategy;
 import com.froxynetwork.froxynetwork.network.output.Callback;
 import com.froxynetwork.froxynetwork.network.output.RestException;
 import com.froxynetwork.froxynetwork.network.output.data.EmptyDataOutput;
 import com.froxynetwork.froxynetwork.network.output.data.server.ServerDataOutput;
 import com.froxynetwork.froxynetwork.network.service.ServerService.Type;
 
+import lombok.Getter;
+
 /**
  * MIT License
  *
@@ -44,90 +65,242 @@ import com.froxynetwork.froxynetwork.network.service.ServerService.Type;
 public class ServerManager {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
 
-	private HashMap<String, VPS> vps = new HashMap<>();
+	/**
+	 * All VPS per normalized id (see {@link ServerConfigManager#normalize(String)})
+	 */
+	private ConcurrentHashMap<String, VPS> vps = new ConcurrentHashMap<>();
+	private VpsIndex index = new VpsIndex();
+	/**
+	 * All running servers per id
+	 */
+	private ConcurrentHashMap<String, Server> servers = new ConcurrentHashMap<>();
+	/**
+	 * All temp servers per uuid
+	 */
+	private ConcurrentHashMap<UUID, TempServer> tempServers = new ConcurrentHashMap<>();
+	/**
+	 * Placement strategy per type (in lower case)
+	 */
+	private ConcurrentHashMap<String, PlacementStrategy> strategies = new ConcurrentHashMap<>();
+	@Getter
+	private TempServerExpirer tempServerExpirer;
+	@Getter
+	private BroadcastChannel broadcastChannel;
+	/**
+	 * Used to fetch and register servers while reloading
+	 */
+	private ExecutorService executor;
+	/**
+	 * Used to flush the {@link OutboundQueue} of each VPS and to send heartbeats
+	 */
+	@Getter
+	private ScheduledExecutorService outboundExecutor;
+
+	public ServerManager() {
+		AtomicInteger threadId = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(4, r -> {
+			Thread t = new Thread(r, "CoreManager - Reload #" + threadId.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		AtomicInteger outboundId = new AtomicInteger();
+		outboundExecutor = Executors.newScheduledThreadPool(2, r -> {
+			Thread t = new Thread(r, "CoreManager - Outbound #" + outboundId.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		long heartbeat = Main.get().getIntProperty("heartbeat_interval", 5000);
+		outboundExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+		tempServerExpirer = new TempServerExpirer(Main.get().getIntProperty("temp_server_timeout", 60000));
+		broadcastChannel = new BroadcastChannel(Main.get().getIntProperty("broadcast_window", 10));
+		ReconciliationService rs = Main.get().getReconciliationService();
+		rs.schedule(this::plan, rs.getInterval(), "planner");
+	}
+
+	public void stop() {
+		executor.shutdownNow();
+		tempServerExpirer.stop();
+		broadcastChannel.stop();
+		outboundExecutor.shutdownNow();
+	}
+
+	/**
+	 * Compare the VPS of the config with the loaded VPS: update the limits of
+	 * existing VPS, load new VPS and unload VPS that have been removed. Existing
+	 * VPS keep their WebSocket connection and their temp servers.<br />
+	 * Bungees and servers are then fetched at the same time, registered into
+	 * their VPS and servers that are not linked to a valid VPS are deleted with a
+	 * bounded concurrency ("reload_delete_concurrency" property)<br />
+	 * VPS are compared and servers are registered on the {@link ClusterEventLoop}
+	 * 
+	 * @return A future completed once all servers are loaded and all orphaned
+	 *         servers are deleted
+	 */
+	public CompletableFuture<ReloadSummary> reload() {
+		return Main.get().getClusterEventLoop().submit(() -> {
+			reloadVps();
+			return null;
+		}).thenCompose(v -> {
+			LOG.info("Loading bungees and servers");
+			AtomicInteger failed = new AtomicInteger();
+			CompletableFuture<List<ServerDataOutput.Server>> bungees = fetch(Type.BUNGEE, failed);
+			CompletableFuture<List<ServerDataOutput.Server>> srvs = fetch(Type.SERVER, failed);
+			return bungees.thenCombine(srvs, (b, s) -> {
+				List<ServerDataOutput.Server> all = new ArrayList<>(b);
+				all.addAll(s);
+				return all;
+			}).thenCompose(all -> load(all, failed));
+		});
+	}
+
+	/**
+	 * Send a heartbeat to each VPS
+	 */
+	private void heartbeat() {
+		for (VPS v : this.vps.values()) {
+			try {
+				v.heartbeat();
+			} catch (Exception ex) {
+				// Catch everything, an exception would cancel the next heartbeats
+				LOG.error("", ex);
+			}
+		}
+	}
 
 	/**
-	 * Remove WebSocket connection for all VPS, unload VPS and load these
+	 * Compare the VPS of the config with the loaded VPS
 	 */
-	public void reload() {
-		LOG.info("Unloading all VPS");
-		for (VPS vps : this.vps.values())
-			vps.unload();
+	private void reloadVps() {
 		LOG.info("Reloading VPS");
-		for (ServerVps vps : Main.get().getServerConfigManager().getVps())
-			this.vps.put(vps.getId(), new VPS(vps));
-		LOG.info("Loading bungees");
-		try {
-			for (ServerDataOutput.Server srv : Main.get().getNetworkManager().getNetwork().getServerService()
-					.syncGetServers(Type.BUNGEE).getServers()) {
-				String vpsId = srv.getVps();
-				VPS vps = this.vps.get(vpsId);
-				if (vps == null) {
-					// VPS not found, close this server
-					LOG.error("Got bungee id {} that is not linked to a valid VPS ! (vpsId = {})", srv.getId(), vpsId);
-					Main.get().getNetworkManager().getNetwork().getServerService().asyncDeleteServer(srv.getId(),
-							new Callback<EmptyDataOutput.Empty>() {
-
-								@Override
-								public void onResponse(EmptyDataOutput.Empty response) {
-									// Okay
-								}
-
-								@Override
-								public void onFailure(RestException ex) {
-									LOG.error("Error while closing server {}", srv.getId());
-									LOG.error("", ex);
-								}
-
-								@Override
-								public void onFatalFailure(Throwable t) {
-									LOG.error("Fatal Error while closing server {}", srv.getId());
-									LOG.error("", t);
-								}
-							});
-					continue;
-				}
-				vps.registerServer(new Server(srv, vps));
+		HashSet<String> ids = new HashSet<>();
+		int added = 0, updated = 0, removed = 0;
+		for (ServerVps sv : Main.get().getServerConfigManager().getSnapshot().getVps()) {
+			String id = ServerConfigManager.normalize(sv.getId());
+			ids.add(id);
+			VPS v = this.vps.get(id);
+			if (v == null) {
+				v = new VPS(sv);
+				this.vps.put(id, v);
+				index.add(v);
+				added++;
+			} else {
+				v.update(sv);
+				updated++;
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
 		}
-		LOG.info("Loading servers");
-		try {
-			for (ServerDataOutput.Server srv : Main.get().getNetworkManager().getNetwork().getServerService()
-					.syncGetServers(Type.SERVER).getServers()) {
-				String vpsId = srv.getVps();
-				VPS vps = this.vps.get(vpsId);
-				if (vps == null) {
-					// VPS not found, close this server
-					LOG.error("Got server id {} that is not linked to a valid VPS ! (vpsId = {})", srv.getId(), vpsId);
-					Main.get().getNetworkManager().getNetwork().getServerService().asyncDeleteServer(srv.getId(),
-							new Callback<EmptyDataOutput.Empty>() {
-
-								@Override
-								public void onResponse(EmptyDataOutput.Empty response) {
-									// Okay
-								}
-
-								@Override
-								public void onFailure(RestException ex) {
-									LOG.error("Error while closing server {}", srv.getId());
-									LOG.error("", ex);
-								}
-
-								@Override
-								public void onFatalFailure(Throwable t) {
-									LOG.error("Fatal Error while closing server {}", srv.getId());
-									LOG.error("", t);
-								}
-							});
-					continue;
-				}
-				vps.registerServer(new Server(srv, vps));
+		for (VPS v : new ArrayList<>(this.vps.values())) {
+			String id = ServerConfigManager.normalize(v.getId());
+			if (ids.contains(id))
+				continue;
+			this.vps.remove(id);
+			index.remove(v);
+			v.unload();
+			servers.values().removeIf(srv -> srv.getVps() == v);
+			tempServers.values().removeIf(ts -> ts.getVps() == v);
+			removed++;
+		}
+		LOG.info("VPS reloaded: {} added, {} updated, {} removed", added, updated, removed);
+	}
+
+	/**
+	 * Fetch all servers of specific type from REST
+	 */
+	private CompletableFuture<List<ServerDataOutput.Server>> fetch(Type type, AtomicInteger failed) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return Main.get().getNetworkManager().getNetwork().getServerService().syncGetServers(type)
+						.getServers();
+			} catch (Exception ex) {
+				throw new CompletionException(ex);
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
+		}, executor).exceptionally(t -> {
+			LOG.error("Error while loading servers of type {}", type);
+			LOG.error("", t);
+			failed.incrementAndGet();
+			return new ArrayList<>();
+		});
+	}
+
+	/**
+	 * Register servers into their VPS (servers are built in parallel, then
+	 * registered on the {@link ClusterEventLoop}) and delete orphaned servers
+	 */
+	private CompletableFuture<ReloadSummary> load(List<ServerDataOutput.Server> all, AtomicInteger failed) {
+		HashMap<VPS, List<ServerDataOutput.Server>> byVps = new HashMap<>();
+		ConcurrentLinkedQueue<String> orphans = new ConcurrentLinkedQueue<>();
+		for (ServerDataOutput.Server srv : all) {
+			String vpsId = srv.getVps();
+			VPS vps = vpsId == null ? null : this.vps.get(ServerConfigManager.normalize(vpsId));
+			if (vps == null) {
+				// VPS not found, close this server
+				LOG.error("Got server id {} that is not linked to a valid VPS ! (vpsId = {})", srv.getId(), vpsId);
+				orphans.add(srv.getId());
+				continue;
+			}
+			byVps.computeIfAbsent(vps, v -> new ArrayList<>()).add(srv);
 		}
+		int loaded = all.size() - orphans.size();
+		int orphaned = orphans.size();
+		List<CompletableFuture<?>> tasks = new ArrayList<>();
+		// Do not remove servers if we don't have the complete list
+		boolean complete = failed.get() == 0;
+		ClusterEventLoop loop = Main.get().getClusterEventLoop();
+		for (VPS v : this.vps.values()) {
+			List<ServerDataOutput.Server> srvs = byVps.getOrDefault(v, new ArrayList<>());
+			tasks.add(CompletableFuture.supplyAsync(() -> {
+				List<Server> list = new ArrayList<>();
+				for (ServerDataOutput.Server srv : srvs)
+					list.add(new Server(srv, v));
+				return list;
+			}, executor).thenCompose(list -> loop.submit(() -> {
+				v.reloadServers(list, complete);
+				return null;
+			})));
+		}
+		AtomicInteger deleted = new AtomicInteger();
+		int concurrency = Math.min(orphaned, Main.get().getIntProperty("reload_delete_concurrency", 8));
+		for (int i = 0; i < concurrency; i++)
+			tasks.add(delete(orphans, deleted, failed));
+		return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+				.thenApply(v -> new ReloadSummary(loaded, orphaned, deleted.get(), failed.get()));
+	}
+
+	/**
+	 * Delete orphaned servers one after the other until the queue is empty
+	 */
+	private CompletableFuture<Void> delete(ConcurrentLinkedQueue<String> orphans, AtomicInteger deleted,
+			AtomicInteger failed) {
+		String id = orphans.poll();
+		if (id == null)
+			return CompletableFuture.completedFuture(null);
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		Main.get().getNetworkManager().getNetwork().getServerService().asyncDeleteServer(id,
+				new Callback<EmptyDataOutput.Empty>() {
+
+					@Override
+					public void onResponse(EmptyDataOutput.Empty response) {
+						// Okay
+						deleted.incrementAndGet();
+						future.complete(null);
+					}
+
+					@Override
+					public void onFailure(RestException ex) {
+						LOG.error("Error while closing server {}", id);
+						LOG.error("", ex);
+						failed.incrementAndGet();
+						future.complete(null);
+					}
+
+					@Override
+					public void onFatalFailure(Throwable t) {
+						LOG.error("Fatal Error while closing server {}", id);
+						LOG.error("", t);
+						failed.incrementAndGet();
+						future.complete(null);
+					}
+				});
+		return future.thenCompose(v -> delete(orphans, deleted, failed));
 	}
 
 	/**
@@ -168,12 +341,14 @@ public class ServerManager {
 	 */
 	public void closeServer(String id, Runnable error) {
 		// Find which vps has this id
-		for (VPS v : this.vps.values())
-			if (v.has(id))
-				v.closeServer(id, () -> {
-					LOG.error("Unknown error while closing server {} on vps {}", id, v.getId());
-					error.run();
-				});
+		Server srv = servers.get(id);
+		if (srv == null)
+			return;
+		VPS v = srv.getVps();
+		v.closeServer(id, () -> {
+			LOG.error("Unknown error while closing server {} on vps {}", id, v.getId());
+			error.run();
+		});
 	}
 
 	/**
@@ -183,51 +358,202 @@ public class ServerManager {
 	 */
 	public void onUnregister(String id, String type) {
 		// Do not handle bungee
-		if ("BUNGEE".equalsIgnoreCase(type))
+		if (Main.get().getServerConfigManager().getTypes().get(type) == TypeRegistry.BUNGEE_ID)
 			return;
 		// Remove from VPS and send a stop request
-		for (VPS v : this.vps.values()) {
-			v.unregisterServer(id);
-			v.sendMessage("unregister", id);
+		Server srv = servers.get(id);
+		if (srv != null)
+			srv.getVps().unregisterServer(id);
+		broadcastChannel.publish("unregister", id + " " + type);
+	}
+
+	/**
+	 * When an error occurred while creating a server (called by the "error"
+	 * request). Ignored if the temp server doesn't belong to the VPS that sent
+	 * the error
+	 * 
+	 * @param vps  The VPS that sent the error
+	 * @param uuid The uuid of the temp server
+	 */
+	public void onError(VPS vps, UUID uuid) {
+		TempServer ts = tempServers.get(uuid);
+		if (ts == null)
+			return;
+		if (ts.getVps() != vps) {
+			LOG.error("VPS {} sent an error for temp server {} of vps {}, ignoring it", vps.getId(), uuid,
+					ts.getVps().getId());
+			return;
 		}
+		vps.error(uuid);
+	}
+
+	/**
+	 * Called by a VPS when a server is registered on it
+	 */
+	void onServerAdded(Server srv) {
+		servers.put(srv.getId(), srv);
+	}
+
+	/**
+	 * Called by a VPS when a server is removed from it
+	 */
+	void onServerRemoved(Server srv) {
+		servers.remove(srv.getId(), srv);
+	}
+
+	/**
+	 * Called by a VPS when a temp server is created on it
+	 */
+	void onTempServerAdded(TempServer ts) {
+		tempServers.put(ts.getUuid(), ts);
 	}
 
 	/**
-	 * Iterate over each VPS to find the specific server and returns it. Returns
-	 * null if not found
+	 * Called by a VPS when a temp server is removed from it
+	 */
+	void onTempServerRemoved(TempServer ts) {
+		tempServers.remove(ts.getUuid(), ts);
+	}
+
+	/**
+	 * Returns the specific server or null if not found
 	 * 
 	 * @param id The id of the server
 	 * @return The server associated with the id or null if not found
 	 */
 	public Server getServer(String id) {
-		Server srv = null;
-		for (VPS vps : vps.values())
-			if ((srv = vps.getServer(id)) != null)
-				break;
-		return srv;
+		return servers.get(id);
+	}
+
+	/**
+	 * Returns the specific temp server or null if not found
+	 * 
+	 * @param uuid The uuid of the temp server
+	 * @return The temp server associated with the uuid or null if not found
+	 */
+	public TempServer getTempServer(UUID uuid) {
+		return tempServers.get(uuid);
 	}
 
+	/**
+	 * @param id The id of the VPS, case insensitive
+	 * @return The VPS or null if not found
+	 */
 	public VPS getVPS(String id) {
-		return vps.get(id);
+		return id == null ? null : vps.get(ServerConfigManager.normalize(id));
 	}
 
 	/**
-	 * Iterate over each VPS to find an optimal VPS that'll be used to create a new
-	 * server on this VPS
+	 * Compare the number of servers of each type in the whole network with the
+	 * minimum and the maximum of this type, then start missing servers in one
+	 * pass across all VPS.<br />
+	 * A server of a variant also counts for its parent type, so variants are
+	 * planned before their parent.<br />
+	 * VPS that have reached their start rate limit are skipped. Servers above the
+	 * maximum are only reported, running servers are never stopped<br />
+	 * Executed on the {@link ClusterEventLoop} so that counts don't change while
+	 * planning
+	 */
+	public void plan() {
+		List<VPS> vpss = getVps();
+		// Same snapshot for the whole pass
+		List<ServerConfig> configs = new ArrayList<>(Main.get().getServerConfigManager().getSnapshot().getAll());
+		// Variants first
+		configs.sort(Comparator.comparing(sc -> sc.getParent() == null));
+		for (ServerConfig sc : configs) {
+			String type = sc.getType();
+			// Bungees are started by each VPS
+			if (sc.getTypeId() == TypeRegistry.BUNGEE_ID)
+				continue;
+			int amount = count(sc, vpss);
+			int max = sc.getMax();
+			if (max > 0 && amount > max) {
+				LOG.warn("Type {} has {} servers but maximum is {}", type, amount, max);
+				continue;
+			}
+			int deficit = sc.getMin() - amount;
+			if (max > 0)
+				deficit = Math.min(deficit, max - amount);
+			for (int i = 0; i < deficit; i++) {
+				VPS v = findOptimalVPS(type, VPS::canStart);
+				if (v == null) {
+					LOG.error(Error.FULL.getError(), type);
+					break;
+				}
+				v.openServer(type, srv -> {
+					LOG.info("Server id {} of type {} started !", srv.getId(), srv.getType());
+				}, () -> {
+					LOG.error("Error while starting server type {} on vps {}", type, v.getId());
+				}, false);
+			}
+		}
+	}
+
+	/**
+	 * Count the number of running and temp servers of specific type and of all
+	 * its variants in the whole network
+	 */
+	private int count(ServerConfig sc, List<VPS> vpss) {
+		int amount = 0;
+		for (VPS v : vpss)
+			amount += v.count(sc.getTypeId());
+		for (ServerConfig children : sc.getChildrens())
+			amount += count(children, vpss);
+		return amount;
+	}
+
+	/**
+	 * Find an optimal VPS that'll be used to create a new server on this VPS: the
+	 * VPS with the lowest non-zero score ({@link VPS#getScore(String)}), ties are
+	 * broken by VPS id
 	 * 
 	 * @return An optimal server
 	 */
 	public VPS findOptimalVPS(String type) {
-		VPS v = null;
-		int score = 0;
-		for (VPS vps : this.vps.values()) {
-			int vpsScore = vps.getScore(type);
-			if (vpsScore != 0 && (score == 0 || vpsScore < score)) {
-				v = vps;
-				score = vpsScore;
+		return findOptimalVPS(type, vps -> true);
+	}
+
+	/**
+	 * Find an optimal VPS accepted by the filter that'll be used to create a new
+	 * server on this VPS
+	 * 
+	 * @param type   The type of the server
+	 * @param filter VPS that don't match this filter are ignored
+	 * @return An optimal server
+	 */
+	public VPS findOptimalVPS(String type, Predicate<VPS> filter) {
+		return index.find(type, filter);
+	}
+
+	/**
+	 * Return the placement strategy used for specific type. The strategy is read
+	 * from the "placement.&lt;type&gt;" property, or from the "placement" property
+	 * if the type doesn't have its own strategy (default: least_loaded)
+	 * 
+	 * @param type The type
+	 * @return The placement strategy of this type
+	 */
+	public PlacementStrategy getStrategy(String type) {
+		return strategies.computeIfAbsent(type.toLowerCase(), t -> {
+			String name = Main.get().getProperty("placement." + type, Main.get().getProperty("placement", "least_loaded"));
+			PlacementStrategy strategy = PlacementStrategy.byName(name);
+			if (strategy == null) {
+				LOG.error("Unknown placement strategy for type {}: {}", type, name);
+				LOG.info("Using default placement strategy (least_loaded)");
+				strategy = LeastLoadedStrategy.INSTANCE;
 			}
-		}
-		return v;
+			return strategy;
+		});
+	}
+
+	/**
+	 * Called by a VPS when its score may have changed (server added or removed,
+	 * VPS linked or unlinked)
+	 * 
+	 * @param vps The VPS
+	 */
+	void onChange(VPS vps) {
+		index.update(vps);
 	}
 
 	public List<VPS> getVps() {
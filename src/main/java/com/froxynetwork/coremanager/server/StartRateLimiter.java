@@ -0,0 +1,130 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Token bucket limiting the number of servers started on a VPS<br />
+ * The bucket is refilled at a configured rate. This rate is lowered when the
+ * average start time (time between the "start" message and the "register"
+ * message) goes above the target latency, so slow machines receive less starts
+ */
+public class StartRateLimiter {
+	/**
+	 * Weight of the last measure in the average start time
+	 */
+	private static final double ALPHA = 0.2;
+	/**
+	 * The rate is never lowered below this fraction of the configured rate
+	 */
+	private static final double MIN_FACTOR = 0.1;
+
+	/**
+	 * Number of tokens added per nanosecond
+	 */
+	private double rate;
+	private double capacity;
+	private long latencyTarget;
+	private double tokens;
+	private long lastRefill;
+	/**
+	 * Average start time in ms, 0 if unknown
+	 */
+	private double latency;
+
+	/**
+	 * @param startsPerMinute The number of starts allowed per minute
+	 * @param burst           The maximum number of starts allowed at once
+	 * @param latencyTarget   The start time (in ms) above which the rate is
+	 *                        lowered
+	 */
+	public StartRateLimiter(int startsPerMinute, int burst, long latencyTarget) {
+		configure(startsPerMinute, burst, latencyTarget);
+		this.tokens = capacity;
+		this.lastRefill = System.nanoTime();
+		this.latency = 0;
+	}
+
+	/**
+	 * Change the configuration of this limiter without losing the current tokens
+	 */
+	public synchronized void configure(int startsPerMinute, int burst, long latencyTarget) {
+		if (startsPerMinute <= 0 || burst <= 0)
+			throw new IllegalArgumentException("startsPerMinute and burst must be positive");
+		this.rate = startsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+		this.capacity = burst;
+		this.latencyTarget = latencyTarget;
+		this.tokens = Math.min(tokens, capacity);
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		double factor = 1;
+		if (latency > latencyTarget)
+			factor = Math.max(MIN_FACTOR, latencyTarget / latency);
+		tokens = Math.min(capacity, tokens + (now - lastRefill) * rate * factor);
+		lastRefill = now;
+	}
+
+	/**
+	 * @return true if a start is allowed right now, without consuming it
+	 */
+	public synchronized boolean canAcquire() {
+		refill();
+		return tokens >= 1;
+	}
+
+	/**
+	 * Consume a start if allowed
+	 * 
+	 * @return true if the start is allowed
+	 */
+	public synchronized boolean tryAcquire() {
+		refill();
+		if (tokens < 1)
+			return false;
+		tokens--;
+		return true;
+	}
+
+	/**
+	 * Register the time a server took to start
+	 * 
+	 * @param startTime The start time in ms
+	 */
+	public synchronized void onStarted(long startTime) {
+		refill();
+		latency = latency == 0 ? startTime : (ALPHA * startTime + (1 - ALPHA) * latency);
+	}
+
+	/**
+	 * @return The average start time in ms, 0 if unknown
+	 */
+	public synchronized long getLatency() {
+		return (long) latency;
+	}
+}
@@ -1,9 +1,15 @@
 package com.froxynetwork.coremanager.server;
 
 import java.util.UUID;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * MIT License
@@ -32,21 +38,51 @@ import lombok.Getter;
  */
 /**
  * Temporary server (used to track which server is creating and the action to
- * execute once this server is created)
+ * execute once this server is created)<br />
+ * A temp server expires at its deadline (see {@link TempServerExpirer})
  */
-public class TempServer {
+public class TempServer implements Delayed {
+	@Getter
+	private VPS vps;
 	@Getter
 	private UUID uuid;
 	@Getter
 	private String type;
+	/**
+	 * Id of the type (see {@link TypeRegistry})
+	 */
+	@Getter
+	private int typeId;
 	private Consumer<Server> then;
 	private Runnable error;
+	/**
+	 * When the start has been requested ({@link System#nanoTime()})
+	 */
+	@Getter
+	private long creationTime;
+	/**
+	 * When this temp server expires ({@link System#nanoTime()})
+	 */
+	@Getter
+	private long deadline;
+	/**
+	 * The link on which the "start" message has been sent, null while it's
+	 * waiting to be sent (or to be sent again)
+	 */
+	@Getter
+	@Setter
+	private volatile WebSocketServerImpl link;
 
-	public TempServer(UUID uuid, String type, Consumer<Server> then, Runnable error) {
+	public TempServer(VPS vps, UUID uuid, String type, int typeId, Consumer<Server> then, Runnable error,
+			long timeout) {
+		this.vps = vps;
 		this.uuid = uuid;
 		this.type = type;
+		this.typeId = typeId;
 		this.then = then;
 		this.error = error;
+		this.creationTime = System.nanoTime();
+		this.deadline = creationTime + TimeUnit.MILLISECONDS.toNanos(timeout);
 	}
 
 	public void then(Server srv) {
@@ -56,4 +92,16 @@ public class TempServer {
 	public void error() {
 		error.run();
 	}
+
+	@Override
+	public long getDelay(TimeUnit unit) {
+		return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public int compareTo(Delayed o) {
+		if (o instanceof TempServer)
+			return Long.compare(deadline - ((TempServer) o).deadline, 0);
+		return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+	}
 }
@@ -0,0 +1,89 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.concurrent.DelayQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Expire temp servers that didn't receive any "register" or "error" message
+ * before their deadline, so that lost start requests free their capacity<br />
+ * Temp servers that have been registered are not removed from the queue, they
+ * are just ignored once they expire
+ */
+public class TempServerExpirer {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+
+	private DelayQueue<TempServer> queue;
+	/**
+	 * Time (in ms) a VPS has to answer a start request
+	 */
+	@Getter
+	private long timeout;
+	private Thread thread;
+	private volatile boolean stop;
+
+	public TempServerExpirer(long timeout) {
+		this.queue = new DelayQueue<>();
+		this.timeout = timeout;
+		this.stop = false;
+		this.thread = new Thread(() -> {
+			while (!stop) {
+				TempServer ts;
+				try {
+					ts = queue.take();
+				} catch (InterruptedException ex) {
+					break;
+				}
+				try {
+					ts.getVps().expire(ts);
+				} catch (Exception ex) {
+					LOG.error("", ex);
+				}
+			}
+		}, "CoreManager - TempServer expiry");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Track a temp server until its deadline
+	 * 
+	 * @param ts The temp server
+	 */
+	public void track(TempServer ts) {
+		queue.add(ts);
+	}
+
+	public void stop() {
+		stop = true;
+		thread.interrupt();
+	}
+}
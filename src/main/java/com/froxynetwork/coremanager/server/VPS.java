@@ -1,16 +1,31 @@
 package com.froxynetwork.coremanager.server;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.cluster.ClusterEventLoop;
+import com.froxynetwork.coremanager.scheduler.CustomScheduler;
 import com.froxynetwork.coremanager.scheduler.Scheduler;
-import com.froxynetwork.coremanager.server.config.ServerConfig;
 import com.froxynetwork.coremanager.server.config.ServerVps;
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
+import com.froxynetwork.coremanager.server.placement.PlacementStrategy;
+import com.froxynetwork.coremanager.websocket.protocol.SharedCommand;
 import com.froxynetwork.froxynetwork.network.output.Callback;
 import com.froxynetwork.froxynetwork.network.output.RestException;
 import com.froxynetwork.froxynetwork.network.output.data.server.ServerDataOutput;
@@ -45,92 +60,102 @@ import lombok.Setter;
  * @author 0ddlyoko
  */
 /**
- * Represent an instance of a VPS
+ * Represent an instance of a VPS<br />
+ * All mutations (register, unregister, error, open, close, link, unlink) are
+ * executed on the {@link ClusterEventLoop}, so readers never see a half-applied
+ * change
  */
 public class VPS {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	/**
+	 * Added to the score of a VPS with a slow link, higher than any score of a
+	 * {@link PlacementStrategy}
+	 */
+	public static final int SLOW_PENALTY = 1000000;
 	@Getter
 	private String id;
-	private ServerVps vps;
+	private volatile ServerVps vps;
 	@Getter
 	@Setter
-	private Server bungee;
-	private boolean creatingBungee = false;
-	private HashMap<String, Server> servers;
-	private HashMap<UUID, TempServer> tempServers;
-	private boolean close;
+	private volatile Server bungee;
+	private volatile boolean creatingBungee = false;
+	private ConcurrentHashMap<String, Server> servers;
+	private ConcurrentHashMap<UUID, TempServer> tempServers;
+	/**
+	 * Number of running servers per type id (see {@link TypeRegistry}), only
+	 * replaced (grown) on the {@link ClusterEventLoop}
+	 */
+	private volatile AtomicIntegerArray runningCount;
+	/**
+	 * Number of temp servers per type id (see {@link TypeRegistry}), only replaced
+	 * (grown) on the {@link ClusterEventLoop}
+	 */
+	private volatile AtomicIntegerArray pendingCount;
+	private volatile boolean close;
 	@Getter
-	@Setter
-	private WebSocketServerImpl webSocket;
+	private volatile WebSocketServerImpl webSocket;
+	/**
+	 * Capabilities announced by the agent of this VPS (in lower case), reset
+	 * when this VPS is linked
+	 */
+	private volatile Set<String> capabilities;
+	/**
+	 * Actions waiting for this VPS to be linked
+	 */
+	private ConcurrentLinkedQueue<CustomScheduler> linkWaiters;
 
-	private Thread vpsThread;
+	private ScheduledFuture<?> checkTask;
+	private StartRateLimiter startLimiter;
+	private OutboundQueue outbound;
+	@Getter
+	private LinkHealth health;
 
 	public VPS(ServerVps vps) {
 		this.id = vps.getId();
 		this.vps = vps;
-		servers = new HashMap<>();
-		tempServers = new HashMap<>();
+		servers = new ConcurrentHashMap<>();
+		tempServers = new ConcurrentHashMap<>();
+		int types = Main.get().getServerConfigManager().getTypes().size();
+		runningCount = new AtomicIntegerArray(types);
+		pendingCount = new AtomicIntegerArray(types);
+		linkWaiters = new ConcurrentLinkedQueue<>();
+		capabilities = Collections.emptySet();
+		startLimiter = new StartRateLimiter(vps.getStartRate(), vps.getStartBurst(), vps.getStartLatencyTarget());
+		outbound = new OutboundQueue(this, Main.get().getServerManager().getOutboundExecutor(),
+				Main.get().getIntProperty("outbound_high_water", 1000), Main.get().getIntProperty("outbound_batch", 64),
+				Main.get().getIntProperty("replay_buffer_size", 1024), Main.get().getIntProperty("resume_timeout", 5000));
+		health = new LinkHealth(Main.get().getIntProperty("heartbeat_missed", 3),
+				Main.get().getIntProperty("heartbeat_slow_latency", 1000));
 		this.close = false;
-		vpsThread = new Thread(() -> {
-			// This thread will start servers if there is not required servers
-			// Limit at 5 starts every 10 seconds
-			int limit = 5;
-			while (!close) {
-				try {
-					// Sleep 10 seconds
-					Thread.sleep(1000 * 10);
-				} catch (InterruptedException ex) {
-					LOG.info("Got an interruptedException");
-					break;
-				}
-				// Don't check if VPS is not linked
-				if (!isLinked()) {
-					LOG.error("VPS {} is not linked !", id);
-					continue;
-				}
-				// Check bungee
-				if (bungee == null && !creatingBungee) {
-					// Ask to start the bungee
-					creatingBungee = true;
-					openServer("BUNGEE", bungee -> {
-						LOG.info("Bungee started on VPS {}", id);
-						creatingBungee = false;
-					}, () -> {
-						LOG.error("Error while starting server type BUNGEE on vps {}", id);
-						creatingBungee = false;
-					}, false);
-				}
+		checkTask = Main.get().getReconciliationService().register(this);
+	}
 
-//				// Check if the maximum amount of running server has been reached
-//				if (vps.getMaxServers() >= (servers.size() + tempServers.size()))
-//					continue;
-				int nbr = 0;
-				for (ServerConfig sc : Main.get().getServerConfigManager().getAll()) {
-					if (nbr >= limit)
-						break;
-					String type = sc.getType();
-					int min = sc.getMin();
-					int amount = 0;
-					for (Server srv : servers.values())
-						if (srv.getType().equalsIgnoreCase(type))
-							amount++;
-					for (TempServer srv : tempServers.values())
-						if (srv.getType().equalsIgnoreCase(type))
-							amount++;
-
-					if (amount < min) {
-						// Start servers
-						for (int i = 0; i < min - amount && nbr < limit; i++, nbr++)
-							openServer(type, srv -> {
-								LOG.info("Server id {} of type {} started !", srv.getId(), srv.getType());
-							}, () -> {
-								LOG.error("Error while starting server type {} on vps {}", type, id);
-							}, false);
-					}
-				}
-			}
-		});
-		vpsThread.start();
+	/**
+	 * Called periodically by the {@link ReconciliationService} on the
+	 * {@link ClusterEventLoop}<br />
+	 * Start the bungee of this VPS if it's not running. Other types are started
+	 * by {@link ServerManager#plan()}
+	 */
+	void check() {
+		if (close)
+			return;
+		// Don't check if VPS is not linked
+		if (!isLinked()) {
+			LOG.error("VPS {} is not linked !", id);
+			return;
+		}
+		// Check bungee
+		if (bungee == null && !creatingBungee) {
+			// Ask to start the bungee
+			creatingBungee = true;
+			openServer(TypeRegistry.BUNGEE, bungee -> {
+				LOG.info("Bungee started on VPS {}", id);
+				creatingBungee = false;
+			}, () -> {
+				LOG.error("Error while starting server type BUNGEE on vps {}", id);
+				creatingBungee = false;
+			}, false);
+		}
 	}
 
 	public Server getServer(String id) {
@@ -139,10 +164,13 @@ public class VPS {
 
 	public void openServer(String type, Consumer<Server> then, Runnable error, boolean force) {
 		if (force) {
-			// Run _openServer every seconds until the action is executed
-			Scheduler.add(() -> _openServer(type, then, error) == null, error);
+			// Run _openServer until the action is executed
+			whenLinked(() -> _openServer(type, then, error) == null, error);
 		} else {
-			_openServer(type, then, error);
+			mutate(() -> {
+				if (_openServer(type, then, error) != null && error != null)
+					error.run();
+			});
 		}
 	}
 
@@ -151,22 +179,31 @@ public class VPS {
 			LOG.error(Error.NOTCONNECTED.getError(), id);
 			return Error.NOTCONNECTED;
 		}
+		if (!startLimiter.tryAcquire()) {
+			LOG.debug(Error.RATELIMITED.getError(), id);
+			return Error.RATELIMITED;
+		}
 		// Generate unique id
 		UUID randomUUID = UUID.randomUUID();
 		// In theory, this is not possible but we check to be sure
 		while (tempServers.containsKey(randomUUID))
 			randomUUID = UUID.randomUUID();
 		// Save
-		TempServer ts = new TempServer(randomUUID, type, then, error);
-		tempServers.put(randomUUID, ts);
+		TempServerExpirer expirer = Main.get().getServerManager().getTempServerExpirer();
+		TempServer ts = new TempServer(this, randomUUID, type, types().register(type), then, error,
+				expirer.getTimeout());
+		mutate(() -> {
+			addTemp(ts);
+			expirer.track(ts);
+		});
 		// Send message to VPS
 		LOG.debug("Trying to open server type {} with uuid {}", type, randomUUID.toString());
-		sendMessage("start", randomUUID.toString() + " " + type);
+		sendMessage("start", randomUUID.toString() + " " + type, ts::setLink);
 		return null;
 	}
 
 	public void closeServer(String id, Runnable error) {
-		Scheduler.add(() -> _closeServer(id) == null, error);
+		whenLinked(() -> _closeServer(id) == null, error);
 	}
 
 	private Error _closeServer(String id) {
@@ -176,62 +213,449 @@ public class VPS {
 		}
 		// Send message to VPS
 		sendMessage("stop", id);
-		servers.remove(id);
+		mutate(() -> removeServer(id));
 		return null;
 	}
 
+	/**
+	 * Called while reloading: register specific servers and, if the list is
+	 * complete, remove servers that are not in the list anymore
+	 * 
+	 * @param srvs     The servers of this VPS
+	 * @param complete true if srvs contains all servers of this VPS
+	 */
+	void reloadServers(List<Server> srvs, boolean complete) {
+		mutate(() -> {
+			if (complete) {
+				HashSet<String> ids = new HashSet<>();
+				for (Server srv : srvs)
+					ids.add(srv.getId());
+				for (String id : new ArrayList<>(servers.keySet()))
+					if (!ids.contains(id)) {
+						LOG.info("Server {} doesn't exist anymore, removing it from vps {}", id, this.id);
+						removeServer(id);
+					}
+			}
+			for (Server srv : srvs)
+				addServer(srv);
+		});
+	}
+
+	/**
+	 * Update the configuration of this VPS without closing its connection
+	 * 
+	 * @param vps The new configuration
+	 */
+	void update(ServerVps vps) {
+		mutate(() -> {
+			this.vps = vps;
+			startLimiter.configure(vps.getStartRate(), vps.getStartBurst(), vps.getStartLatencyTarget());
+			changed();
+		});
+	}
+
 	public void registerServer(Server srv) {
-		servers.put(srv.getId(), srv);
+		mutate(() -> addServer(srv));
 	}
 
 	public void unregisterServer(String id) {
-		servers.remove(id);
+		mutate(() -> removeServer(id));
+	}
+
+	/**
+	 * Execute a mutation of this VPS on the {@link ClusterEventLoop}
+	 */
+	private void mutate(Runnable r) {
+		Main.get().getClusterEventLoop().execute(r);
+	}
+
+	private void addServer(Server srv) {
+		Server old = servers.put(srv.getId(), srv);
+		if (old != null)
+			addRunning(old.getTypeId(), -1);
+		addRunning(srv.getTypeId(), 1);
+		ServerManager sm = serverManager();
+		if (sm != null) {
+			sm.onServerAdded(srv);
+			sm.onChange(this);
+		}
+	}
+
+	private Server removeServer(String id) {
+		Server srv = servers.remove(id);
+		if (srv != null) {
+			addRunning(srv.getTypeId(), -1);
+			ServerManager sm = serverManager();
+			if (sm != null) {
+				sm.onServerRemoved(srv);
+				sm.onChange(this);
+			}
+		}
+		return srv;
+	}
+
+	private void addTemp(TempServer ts) {
+		tempServers.put(ts.getUuid(), ts);
+		addPending(ts.getTypeId(), 1);
+		ServerManager sm = serverManager();
+		if (sm != null) {
+			sm.onTempServerAdded(ts);
+			sm.onChange(this);
+		}
+	}
+
+	private TempServer removeTemp(UUID uuid) {
+		TempServer ts = tempServers.remove(uuid);
+		if (ts != null) {
+			addPending(ts.getTypeId(), -1);
+			ServerManager sm = serverManager();
+			if (sm != null) {
+				sm.onTempServerRemoved(ts);
+				sm.onChange(this);
+			}
+		}
+		return ts;
+	}
+
+	/**
+	 * Notify the ServerManager that the score of this VPS may have changed
+	 */
+	private void changed() {
+		ServerManager sm = serverManager();
+		if (sm != null)
+			sm.onChange(this);
+	}
+
+	/**
+	 * @return The ServerManager to notify, or null if this VPS is unloaded
+	 */
+	private ServerManager serverManager() {
+		return close ? null : Main.get().getServerManager();
+	}
+
+	private static TypeRegistry types() {
+		return Main.get().getServerConfigManager().getTypes();
+	}
+
+	private void addRunning(int typeId, int delta) {
+		runningCount = grow(runningCount, typeId);
+		runningCount.addAndGet(typeId, delta);
+	}
+
+	private void addPending(int typeId, int delta) {
+		pendingCount = grow(pendingCount, typeId);
+		pendingCount.addAndGet(typeId, delta);
+	}
+
+	/**
+	 * Return an array that can store the count of specific type id. Must be
+	 * called on the {@link ClusterEventLoop}
+	 */
+	private static AtomicIntegerArray grow(AtomicIntegerArray counts, int typeId) {
+		if (typeId < counts.length())
+			return counts;
+		AtomicIntegerArray grown = new AtomicIntegerArray(Math.max(typeId + 1, types().size()));
+		for (int i = 0; i < counts.length(); i++)
+			grown.set(i, counts.get(i));
+		return grown;
+	}
+
+	private static int get(AtomicIntegerArray counts, int typeId) {
+		return typeId >= 0 && typeId < counts.length() ? counts.get(typeId) : 0;
 	}
 
 	/**
 	 * Return the score of this VPS or 0<br />
-	 * 1 + number of servers + (2 * number of temp servers)<br />
-	 * <b>2 * number of temp servers</b> is used to avoid creating a lot of servers
-	 * at the same time for the same machine<br />
-	 * We add 1 to avoid returning 0 if there is not servers running on this
-	 * vps<br />
-	 * Returns 0 if there is not WebSocket connection, VPS is full or vps has
-	 * reached maximum type
+	 * The score is computed by the {@link PlacementStrategy} of this type (see
+	 * {@link ServerManager#getStrategy(String)}). A slow link (see
+	 * {@link LinkHealth}) adds {@link #SLOW_PENALTY} to the score<br />
+	 * Returns 0 if there is not WebSocket connection, the link is degraded, VPS is
+	 * full or vps has reached maximum type
 	 * 
-	 * @return 1 + number of servers + 2 * number of temp servers
+	 * @return The score of this VPS, lower is better
 	 */
 	public int getScore(String type) {
-		if ((servers.size() + tempServers.size()) >= vps.getMaxServers())
-			return 0;
-		// Do not create a new server if it's not linked
-		if (!isLinked())
+		return getScore(types().get(type));
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @return The score of this VPS, lower is better
+	 * @see #getScore(String)
+	 */
+	public int getScore(int typeId) {
+		if (!isAvailable(typeId))
 			return 0;
+		String type = types().name(typeId);
+		int score = Math.max(1, Main.get().getServerManager().getStrategy(type).score(this, type));
+		// Only use a slow VPS if there is no other VPS
+		if (health.isSlow())
+			score += SLOW_PENALTY;
+		return score;
+	}
+
+	/**
+	 * Check if a new server of specific type can be opened on this VPS
+	 * 
+	 * @param type The type
+	 * @return false if there is not WebSocket connection, the link is degraded,
+	 *         VPS is full or vps has reached maximum type
+	 */
+	public boolean isAvailable(String type) {
+		return isAvailable(types().get(type));
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @see #isAvailable(String)
+	 */
+	public boolean isAvailable(int typeId) {
+		if (typeId == TypeRegistry.UNKNOWN)
+			return false;
+		if ((servers.size() + tempServers.size()) >= vps.getMaxServers())
+			return false;
+		// Do not create a new server if it's not linked or if it doesn't answer
+		if (!isLinked() || health.isDegraded())
+			return false;
 		// Do not create a server if maximum type is reached
-		int max = vps.getMax(type);
-		int count = count(type);
+		int max = vps.getMax(typeId);
+		int count = count(typeId);
 		if (count >= max)
-			return 0;
-		return 1 + servers.size() + 2 * tempServers.size();
+			return false;
+		return true;
 	}
 
 	/**
-	 * Send a message throw WebSocket to this VPS
+	 * @return The number of running servers on this VPS
+	 */
+	public int getServerCount() {
+		return servers.size();
+	}
+
+	/**
+	 * @return The number of temp servers on this VPS
+	 */
+	public int getTempServerCount() {
+		return tempServers.size();
+	}
+
+	/**
+	 * Check if a new server can be started on this VPS without exceeding its
+	 * start rate limit
+	 * 
+	 * @return true if a new server can be started now
+	 */
+	public boolean canStart() {
+		return startLimiter.canAcquire();
+	}
+
+	/**
+	 * @return The average time (in ms) a server takes to start on this VPS, 0 if
+	 *         unknown
+	 */
+	public long getStartLatency() {
+		return startLimiter.getLatency();
+	}
+
+	/**
+	 * Send a message throw WebSocket to this VPS<br />
+	 * Messages are queued in the {@link OutboundQueue} of this VPS and are sent
+	 * in order once this VPS is linked
 	 * 
 	 * @param message The message to send
 	 */
 	public void sendMessage(String channel, String message) {
+		outbound.add(channel, message);
+	}
+
+	/**
+	 * Send a message throw WebSocket to this VPS
+	 * 
+	 * @param message The message to send
+	 * @param sent    Called with the WebSocket once the message has been sent,
+	 *                and with null if it has to be sent again
+	 * @see #sendMessage(String, String)
+	 */
+	public void sendMessage(String channel, String message, Consumer<WebSocketServerImpl> sent) {
+		outbound.add(channel, message, sent);
+	}
+
+	/**
+	 * Send a command shared by many VPS throw WebSocket to this VPS
+	 * 
+	 * @param command The command, encoded once for all VPS
+	 * @see #sendMessage(String, String)
+	 */
+	public void sendMessage(SharedCommand command) {
+		outbound.add(command);
+	}
+
+	/**
+	 * Called periodically by the {@link ServerManager}: send a "ping" to this VPS
+	 * and mark the link as degraded if previous pings haven't been answered<br />
+	 * Pings are directly sent, without the {@link OutboundQueue}, and only if the
+	 * agent has announced the "heartbeat" capability: older agents never answer
+	 * them
+	 */
+	void heartbeat() {
+		WebSocketServerImpl ws = webSocket;
+		if (close || ws == null || !ws.isConnected() || !ws.isAuthenticated())
+			return;
+		if (!hasCapability(LinkHealth.CAPABILITY))
+			return;
+		int state = health.state();
+		long ping = health.ping();
+		if (health.state() != state) {
+			LOG.warn("VPS {} didn't answer the last pings, link is degraded", id);
+			mutate(this::changed);
+		}
+		try {
+			ws.sendCommand("ping", Long.toString(ping));
+		} catch (Exception ex) {
+			LOG.error("Error while sending a ping to VPS {}", id);
+			LOG.error("", ex);
+		}
+	}
+
+	/**
+	 * Called by the "pong" request
+	 * 
+	 * @param ping     The id of the ping
+	 * @param received When the "pong" has been received ({@link System#nanoTime()})
+	 */
+	public void onPong(long ping, long received) {
+		int state = health.state();
+		if (!health.pong(ping, received))
+			return;
+		if (health.state() != state) {
+			LOG.info("Link with VPS {} is now {} (latency: {} ms)", id, health.isSlow() ? "slow" : "healthy",
+					health.getLatency());
+			mutate(this::changed);
+		}
+	}
+
+	/**
+	 * Called by the "ack" request
+	 * 
+	 * @param seq The last sequence number received by the agent
+	 */
+	public void ack(long seq) {
+		outbound.ack(seq);
+	}
+
+	/**
+	 * Called by the "resume" request, once the agent is linked again
+	 * 
+	 * @param session The id of the session
+	 * @param seq     The last sequence number received by the agent
+	 */
+	public void resume(String session, long seq) {
+		if (!outbound.resume(session, seq)) {
+			LOG.error("Some messages sent to VPS {} have been lost, asking a resync", id);
+			sendMessage("resync", "");
+		}
+	}
+
+	/**
+	 * @return The number of messages waiting to be sent to this VPS
+	 */
+	public int getOutboundDepth() {
+		return outbound.size();
+	}
+
+	/**
+	 * @return The number of notifications dropped because this VPS was too slow
+	 */
+	public long getOutboundDropped() {
+		return outbound.getDropped();
+	}
+
+	/**
+	 * Execute an action that needs a WebSocket connection with this VPS.<br />
+	 * While this VPS is not linked, the action is parked and is executed again as
+	 * soon as the VPS is linked (see {@link #setWebSocket(WebSocketServerImpl)})
+	 * instead of being retried by the Scheduler
+	 * 
+	 * @param exec  The action to execute
+	 * @param error The action to execute if this VPS is unloaded or if the
+	 *              Scheduler is stopped
+	 */
+	private void whenLinked(Supplier<Boolean> exec, Runnable error) {
 		Scheduler.add(() -> {
-			if (!isLinked() || !webSocket.isAuthenticated())
-				return false;
-			try {
-				webSocket.sendCommand(channel, message);
-			} catch (Exception ex) {
-				LOG.error("Error while sending a message to VPS {} with channel {}", id, channel);
-				LOG.error("", ex);
-				return false;
+			if (!isLinked()) {
+				park(exec, error);
+				return true;
+			}
+			return exec.get();
+		}, error);
+	}
+
+	private void park(Supplier<Boolean> exec, Runnable error) {
+		if (close) {
+			if (error != null)
+				error.run();
+			return;
+		}
+		linkWaiters.add(new CustomScheduler(exec, error));
+		// This VPS may have been linked while we were parking this action
+		if (isLinked())
+			releaseWaiters();
+	}
+
+	/**
+	 * Execute again all actions that were waiting for this VPS to be linked
+	 */
+	private void releaseWaiters() {
+		CustomScheduler cs;
+		while ((cs = linkWaiters.poll()) != null)
+			whenLinked(cs.getExec(), cs.getError());
+	}
+
+	/**
+	 * Link or unlink this VPS. If a WebSocket is set, all actions waiting for
+	 * this VPS to be linked are directly executed
+	 * 
+	 * @param webSocket The WebSocket or null
+	 */
+	public void setWebSocket(WebSocketServerImpl webSocket) {
+		mutate(() -> {
+			if (this.webSocket != null)
+				outbound.onUnlink();
+			this.webSocket = webSocket;
+			this.capabilities = Collections.emptySet();
+			health.reset();
+			changed();
+			if (webSocket != null) {
+				LOG.debug("VPS {} linked, releasing {} waiting actions", id, linkWaiters.size());
+				releaseWaiters();
+				outbound.onLink();
+				outbound.flush();
 			}
-			return true;
-		}, null);
+		});
+	}
+
+	/**
+	 * Set the capabilities announced by the agent of this VPS (called by the
+	 * "capabilities" request)
+	 * 
+	 * @param capabilities The capabilities
+	 */
+	public void setCapabilities(Set<String> capabilities) {
+		mutate(() -> {
+			HashSet<String> caps = new HashSet<>();
+			for (String c : capabilities)
+				caps.add(c.toLowerCase());
+			this.capabilities = Collections.unmodifiableSet(caps);
+			LOG.debug("VPS {} capabilities: {}", id, caps);
+		});
+	}
+
+	/**
+	 * @param capability The capability
+	 * @return true if the agent of this VPS has announced this capability
+	 */
+	public boolean hasCapability(String capability) {
+		return capabilities.contains(capability.toLowerCase());
 	}
 
 	/**
@@ -272,11 +696,51 @@ public class VPS {
 	 * @return The number of running and temp servers that are of specific type
 	 */
 	public int count(String type) {
-		int count = 0;
-		for (Server srv : servers.values())
-			if (srv.getType().equalsIgnoreCase(type))
-				count++;
-		return count;
+		return count(types().get(type));
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @return The number of running and temp servers that are of specific type
+	 */
+	public int count(int typeId) {
+		return countRunning(typeId) + countPending(typeId);
+	}
+
+	/**
+	 * Count the number of running servers that is of specific type
+	 * 
+	 * @param type The type
+	 * @return The number of running servers that are of specific type
+	 */
+	public int countRunning(String type) {
+		return countRunning(types().get(type));
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @return The number of running servers that are of specific type
+	 */
+	public int countRunning(int typeId) {
+		return get(runningCount, typeId);
+	}
+
+	/**
+	 * Count the number of temp servers that is of specific type
+	 * 
+	 * @param type The type
+	 * @return The number of temp servers that are of specific type
+	 */
+	public int countPending(String type) {
+		return countPending(types().get(type));
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @return The number of temp servers that are of specific type
+	 */
+	public int countPending(int typeId) {
+		return get(pendingCount, typeId);
 	}
 
 	/**
@@ -286,93 +750,221 @@ public class VPS {
 	 * @param uuid
 	 */
 	public void onRegister(UUID uuid, String id) {
-		LOG.debug("newServer: id = {}, uuid {}", id, uuid.toString());
-		TempServer ts = tempServers.remove(uuid);
-		if (ts == null) {
-			LOG.error("Got new server with id = {} and uuid = {} but this uuid isn't listed, stopping this server", id,
-					uuid.toString());
-			// Send stop command
-			sendMessage("stop", id);
-			return;
-		}
-		// Get id from REST
-		Main.get().getNetworkManager().getNetwork().getServerService().asyncGetServer(id,
-				new Callback<ServerDataOutput.Server>() {
-
-					@Override
-					public void onResponse(ServerDataOutput.Server response) {
-						// Okay, this server is now loaded (Let's check to be sure the VPS of this
-						// server)
-						if (!response.getVps().equalsIgnoreCase(getId())) {
-							LOG.error("Server {} doesn't have vps id {} but has {}", id, getId(), response.getVps());
-							sendMessage("stop", id);
-							return;
+		mutate(() -> {
+			LOG.debug("newServer: id = {}, uuid {}", id, uuid.toString());
+			TempServer ts = removeTemp(uuid);
+			if (ts == null) {
+				LOG.error("Got new server with id = {} and uuid = {} but this uuid isn't listed, stopping this server",
+						id, uuid.toString());
+				// Send stop command
+				sendMessage("stop", id);
+				return;
+			}
+			startLimiter.onStarted(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ts.getCreationTime()));
+			// Get id from REST
+			Main.get().getNetworkManager().getNetwork().getServerService().asyncGetServer(id,
+					new Callback<ServerDataOutput.Server>() {
+
+						@Override
+						public void onResponse(ServerDataOutput.Server response) {
+							// Okay, this server is now loaded (Let's check to be sure the VPS of this
+							// server)
+							if (!response.getVps().equalsIgnoreCase(getId())) {
+								LOG.error("Server {} doesn't have vps id {} but has {}", id, getId(), response.getVps());
+								sendMessage("stop", id);
+								return;
+							}
+							LOG.info("newServer: id = {}", id);
+							mutate(() -> {
+								Server server = new Server(response, VPS.this);
+								if (ts.getTypeId() == TypeRegistry.BUNGEE_ID)
+									bungee = server;
+								else
+									addServer(server);
+								// Notify all servers
+								Main.get().getServerManager().getBroadcastChannel().publish("register",
+										id + " " + response.getType());
+								// Execute then action
+								ts.then(server);
+							});
 						}
-						LOG.info("newServer: id = {}", id);
-						Server server = new Server(response, VPS.this);
-						if ("BUNGEE".equalsIgnoreCase(ts.getType()))
-							bungee = server;
-						else
-							servers.put(id, server);
-						// Notify all servers
-						for (VPS vps : Main.get().getServerManager().getVps())
-							vps.sendMessage("register", id + " " + response.getType());
-						// Execute then action
-						ts.then(server);
-					}
 
-					@Override
-					public void onFailure(RestException ex) {
-						LOG.error("Failure #{} while getting server {}", ex.getError().getErrorId(), id);
-						LOG.error("", ex);
-						sendMessage("stop", id);
-					}
+						@Override
+						public void onFailure(RestException ex) {
+							LOG.error("Failure #{} while getting server {}", ex.getError().getErrorId(), id);
+							LOG.error("", ex);
+							sendMessage("stop", id);
+						}
 
-					@Override
-					public void onFatalFailure(Throwable t) {
-						LOG.error("Fatal Failure while getting server {}", id);
-						LOG.error("", t);
-						sendMessage("stop", id);
-					}
-				});
+						@Override
+						public void onFatalFailure(Throwable t) {
+							LOG.error("Fatal Failure while getting server {}", id);
+							LOG.error("", t);
+							sendMessage("stop", id);
+						}
+					});
+		});
 	}
 
 	public void error(UUID uuid) {
-		TempServer ts = tempServers.remove(uuid);
-		if (ts == null)
-			return;
-		LOG.debug("newServer error on vps {}: uuid {}", id, uuid.toString());
-		ts.error();
+		mutate(() -> {
+			TempServer ts = removeTemp(uuid);
+			if (ts == null)
+				return;
+			LOG.debug("newServer error on vps {}: uuid {}", id, uuid.toString());
+			ts.error();
+		});
+	}
+
+	/**
+	 * Called by {@link TempServerExpirer} once the deadline of a temp server is
+	 * reached. If this temp server is still waiting, it's removed, its error is
+	 * called and a stop request is sent to the VPS
+	 * 
+	 * @param ts The expired temp server
+	 */
+	void expire(TempServer ts) {
+		mutate(() -> {
+			if (tempServers.get(ts.getUuid()) != ts)
+				return;
+			removeTemp(ts.getUuid());
+			LOG.error("Start request {} of type {} on vps {} expired", ts.getUuid().toString(), ts.getType(), id);
+			sendMessage("stop", ts.getUuid().toString());
+			ts.error();
+		});
 	}
 
 	public void onUnregister(String id, String type) {
-		// Remove from VPS
-		if ("BUNGEE".equalsIgnoreCase(type)) {
-			if (bungee != null && id.equalsIgnoreCase(bungee.getId()))
+		mutate(() -> {
+			// Remove from VPS
+			if (types().get(type) == TypeRegistry.BUNGEE_ID) {
+				if (bungee != null && id.equalsIgnoreCase(bungee.getId()))
+					bungee = null;
+			} else {
+				removeServer(id);
+			}
+			// This server may be registered on another VPS
+			Server srv = Main.get().getServerManager().getServer(id);
+			if (srv != null)
+				srv.getVps().unregisterServer(id);
+			// Send a close request
+			Main.get().getServerManager().getBroadcastChannel().publish("unregister", id + " " + type);
+		});
+	}
+
+	/**
+	 * Called by the "inventory" request: compare the servers and the start
+	 * requests reported by the VPS with the known ones, in one pass, without any
+	 * REST request<br />
+	 * <ul>
+	 * <li>Reported servers that are not known are adopted, or stopped if their
+	 * type doesn't exist</li>
+	 * <li>Known servers that are not reported are removed</li>
+	 * <li>Temp servers that are not reported are failed, if their start request
+ * has been sent on a previous link. Start requests that are still waiting to
+ * be sent (or sent again) or that have been sent on this link may not be
+ * known by the VPS yet</li>
+	 * <li>Reported start requests that are not known are stopped</li>
+	 * </ul>
+	 * 
+	 * @param running The servers running on the VPS (id -&gt; type)
+	 * @param pending The start requests that the VPS is processing
+	 */
+	public void inventory(Map<String, String> running, Set<UUID> pending) {
+		mutate(() -> {
+			int adopted = 0, stopped = 0, removed = 0, failed = 0;
+			ServerManager sm = Main.get().getServerManager();
+			for (Map.Entry<String, String> e : running.entrySet()) {
+				String id = e.getKey();
+				String type = e.getValue();
+				if (types().get(type) == TypeRegistry.BUNGEE_ID) {
+					if (bungee == null || !bungee.getId().equals(id)) {
+						bungee = new Server(id, type, this);
+						adopted++;
+					}
+					continue;
+				}
+				if (servers.containsKey(id))
+					continue;
+				if (!Main.get().getServerConfigManager().exist(type)) {
+					LOG.error("VPS {} runs server {} of unknown type {}, stopping it", this.id, id, type);
+					sendMessage("stop", id);
+					stopped++;
+					continue;
+				}
+				// This server may be registered on another VPS
+				Server old = sm.getServer(id);
+				if (old != null)
+					old.getVps().unregisterServer(id);
+				addServer(new Server(id, type, this));
+				sm.getBroadcastChannel().publish("register", id + " " + type);
+				adopted++;
+			}
+			if (bungee != null && !running.containsKey(bungee.getId())) {
 				bungee = null;
-		} else {
-			servers.remove(id);
-		}
-		// Send a close request
-		for (VPS v : Main.get().getServerManager().getVps()) {
-			v.unregisterServer(id);
-			v.sendMessage("unregister", id + " " + type);
-		}
+				removed++;
+			}
+			for (Server srv : new ArrayList<>(servers.values())) {
+				if (running.containsKey(srv.getId()))
+					continue;
+				removeServer(srv.getId());
+				sm.getBroadcastChannel().publish("unregister", srv.getId() + " " + srv.getType());
+				removed++;
+			}
+			for (TempServer ts : new ArrayList<>(tempServers.values())) {
+				if (pending.contains(ts.getUuid()))
+					continue;
+				WebSocketServerImpl link = ts.getLink();
+				if (link == null || link == webSocket)
+					continue;
+				// The VPS has lost this start request
+				removeTemp(ts.getUuid());
+				ts.error();
+				failed++;
+			}
+			for (UUID uuid : pending) {
+				if (tempServers.containsKey(uuid))
+					continue;
+				sendMessage("stop", uuid.toString());
+				stopped++;
+			}
+			LOG.info("Inventory of vps {}: {} adopted, {} stopped, {} removed, {} failed", this.id, adopted, stopped,
+					removed, failed);
+		});
 	}
 
 	/**
 	 * Unload this vps and close WebSocket connection
 	 */
 	public void unload() {
-		// Avoid unloading multiple time
-		if (close)
-			return;
-		close = true;
-		LOG.info("Unloading vps {}", id);
-		if (webSocket != null)
-			webSocket.disconnect();
-		vpsThread.interrupt();
-		LOG.info("VPS {} unloaded", id);
+		mutate(() -> {
+			// Avoid unloading multiple time
+			if (close)
+				return;
+			close = true;
+			LOG.info("Unloading vps {}", id);
+			if (webSocket != null)
+				webSocket.disconnect();
+			checkTask.cancel(false);
+			outbound.clear();
+			CustomScheduler cs;
+			while ((cs = linkWaiters.poll()) != null)
+				try {
+					cs.error();
+				} catch (Exception ex) {
+					LOG.error("", ex);
+				}
+			// Start requests will never be answered. Remove them so that they are not
+			// failed again once they expire
+			for (TempServer ts : new ArrayList<>(tempServers.values()))
+				try {
+					removeTemp(ts.getUuid());
+					ts.error();
+				} catch (Exception ex) {
+					LOG.error("", ex);
+				}
+			LOG.info("VPS {} unloaded", id);
+		});
 	}
 
 	public int getMaxServers() {
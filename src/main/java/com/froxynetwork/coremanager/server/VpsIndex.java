@@ -0,0 +1,204 @@
+package com.froxynetwork.coremanager.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Index of VPS sorted by score ({@link VPS#getScore(int)}) for each type, so
+ * that the best VPS to open a server is found in O(log V), plus O(k) for the k
+ * better VPS rejected by a filter (e.g. {@link VPS#canStart()})<br />
+ * VPS with a score of 0 (not linked, full or maximum type reached) are not
+ * indexed. The score of a VPS is recomputed each time a server is added to or
+ * removed from this VPS, or when it's linked or unlinked (see
+ * {@link #update(VPS)})
+ */
+public class VpsIndex {
+
+	private static class Entry implements Comparable<Entry> {
+		private VPS vps;
+		private int score;
+
+		private Entry(VPS vps, int score) {
+			this.vps = vps;
+			this.score = score;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			if (score != o.score)
+				return Integer.compare(score, o.score);
+			return vps.getId().compareTo(o.vps.getId());
+		}
+	}
+
+	/**
+	 * Indexed VPS per type id (see {@link TypeRegistry}), null if the type is not
+	 * indexed yet
+	 */
+	private ArrayList<TreeSet<Entry>> byType;
+	/**
+	 * Entries of each VPS per type id
+	 */
+	private HashMap<VPS, Entry[]> entries;
+
+	public VpsIndex() {
+		this.byType = new ArrayList<>();
+		this.entries = new HashMap<>();
+	}
+
+	/**
+	 * Compute again the score of specific VPS for each indexed type. Does nothing
+	 * if this VPS is not indexed
+	 * 
+	 * @param vps The VPS
+	 */
+	public synchronized void update(VPS vps) {
+		if (!entries.containsKey(vps))
+			return;
+		for (int typeId = 0; typeId < byType.size(); typeId++) {
+			TreeSet<Entry> set = byType.get(typeId);
+			if (set != null)
+				update(vps, typeId, set);
+		}
+	}
+
+	private void update(VPS vps, int typeId, TreeSet<Entry> set) {
+		update(vps, typeId, set, vps.getScore(typeId));
+	}
+
+	private void update(VPS vps, int typeId, TreeSet<Entry> set, int score) {
+		Entry[] vpsEntries = entries(vps);
+		Entry entry = vpsEntries[typeId];
+		if (entry != null) {
+			if (entry.score == score)
+				return;
+			set.remove(entry);
+			vpsEntries[typeId] = null;
+		}
+		if (score == 0)
+			return;
+		entry = new Entry(vps, score);
+		set.add(entry);
+		vpsEntries[typeId] = entry;
+	}
+
+	/**
+	 * @return The entries of specific VPS, with a slot for each indexed type
+	 */
+	private Entry[] entries(VPS vps) {
+		Entry[] vpsEntries = entries.get(vps);
+		if (vpsEntries.length < byType.size()) {
+			vpsEntries = Arrays.copyOf(vpsEntries, byType.size());
+			entries.put(vps, vpsEntries);
+		}
+		return vpsEntries;
+	}
+
+	/**
+	 * Index a new VPS
+	 * 
+	 * @param vps The VPS
+	 */
+	public synchronized void add(VPS vps) {
+		entries.putIfAbsent(vps, new Entry[byType.size()]);
+		update(vps);
+	}
+
+	/**
+	 * Remove specific VPS from this index
+	 * 
+	 * @param vps The VPS
+	 */
+	public synchronized void remove(VPS vps) {
+		Entry[] vpsEntries = entries.remove(vps);
+		if (vpsEntries == null)
+			return;
+		for (int typeId = 0; typeId < vpsEntries.length; typeId++)
+			if (vpsEntries[typeId] != null)
+				byType.get(typeId).remove(vpsEntries[typeId]);
+	}
+
+	/**
+	 * Find the VPS with the lowest score for specific type that matches the
+	 * filter. VPS are visited by score, so each VPS rejected by the filter costs
+	 * one more step
+	 * 
+	 * @param type   The type
+	 * @param filter VPS that don't match this filter are ignored
+	 * @return The VPS with the lowest score, or null if there is no available VPS
+	 */
+	public VPS find(String type, Predicate<VPS> filter) {
+		int typeId = Main.get().getServerConfigManager().getTypes().get(type);
+		if (typeId == TypeRegistry.UNKNOWN)
+			return null;
+		return find(typeId, filter);
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @see #find(String, Predicate)
+	 */
+	public synchronized VPS find(int typeId, Predicate<VPS> filter) {
+		while (byType.size() <= typeId)
+			byType.add(null);
+		TreeSet<Entry> set = byType.get(typeId);
+		if (set == null) {
+			// First time we see this type, index it
+			set = new TreeSet<>();
+			byType.set(typeId, set);
+			for (VPS vps : entries.keySet())
+				update(vps, typeId, set);
+		}
+		Iterator<Entry> it = set.iterator();
+		while (it.hasNext()) {
+			Entry e = it.next();
+			if (!filter.test(e.vps))
+				continue;
+			// The connection may have been closed without notifying us, only check the
+			// score of the candidate
+			int score = e.vps.getScore(typeId);
+			if (score == e.score)
+				return e.vps;
+			update(e.vps, typeId, set, score);
+			Entry moved = entries(e.vps)[typeId];
+			// Better than all remaining VPS, and it matches the filter
+			if (moved != null && moved.compareTo(e) < 0)
+				return e.vps;
+			// Continue after the old position, the set has changed
+			it = set.tailSet(e, false).iterator();
+		}
+		return null;
+	}
+}
@@ -38,6 +38,10 @@ import lombok.ToString;
 @EqualsAndHashCode
 public class ServerConfig {
 	private String type;
+	/**
+	 * Id of the type (see {@link TypeRegistry})
+	 */
+	private int typeId;
 	private String[] database;
 	private List<ServerConfig> childrens;
 	private int min;
@@ -45,8 +49,9 @@ public class ServerConfig {
 	@Setter
 	private ServerConfig parent;
 
-	public ServerConfig(String type, String[] database, int min, int max) {
+	public ServerConfig(String type, int typeId, String[] database, int min, int max) {
 		this.type = type;
+		this.typeId = typeId;
 		this.database = database;
 		this.childrens = new ArrayList<>();
 		this.min = min;
@@ -3,8 +3,10 @@ package com.froxynetwork.coremanager.server.config;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,22 +48,27 @@ import lombok.Getter;
 public class ServerConfigManager {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
 
-	private boolean actuallyReloading;
+	private AtomicBoolean actuallyReloading;
 
-	private HashMap<String, ServerConfig> serversConfig;
+	/**
+	 * The last loaded config, replaced at once by each reload
+	 */
+	private AtomicReference<ServerConfigSnapshot> snapshot;
+	/**
+	 * Id of each type, kept across reloads
+	 */
 	@Getter
-	private List<ServerVps> vps;
+	private TypeRegistry types;
 
 	public ServerConfigManager() {
-		this.serversConfig = new HashMap<>();
-		this.vps = new ArrayList<>();
-		this.actuallyReloading = false;
+		this.types = new TypeRegistry();
+		this.snapshot = new AtomicReference<>(ServerConfigSnapshot.EMPTY);
+		this.actuallyReloading = new AtomicBoolean(false);
 	}
 
 	public void reload(Runnable then) throws RestException, Exception {
-		if (actuallyReloading)
+		if (!actuallyReloading.compareAndSet(false, true))
 			throw new IllegalStateException("Servers are actually reloading, please retry later");
-		actuallyReloading = true;
 		LOG.info("Initializing Server Config");
 		// Call retrofit
 		Main.get().getNetworkManager().network().getServerConfigService()
@@ -69,7 +76,7 @@ public class ServerConfigManager {
 
 					@Override
 					public void onResponse(ServersConfig response) {
-						HashMap<String, ServerConfig> newServersConfig = new HashMap<>();
+						LinkedHashMap<String, ServerConfig> newServersConfig = new LinkedHashMap<>();
 						try {
 							int countType = 0;
 							int countSubType = 0;
@@ -82,7 +89,8 @@ public class ServerConfigManager {
 
 								com.froxynetwork.froxynetwork.network.output.data.server.config.ServerConfigDataOutput.ServerConfig[] variants = sc
 										.getVariants();
-								ServerConfig newSc = new ServerConfig(id, database, sc.getMin(), sc.getMax());
+								ServerConfig newSc = new ServerConfig(id, types.register(id), database, sc.getMin(),
+										sc.getMax());
 								newServersConfig.put(id, newSc);
 								if (variants != null) {
 									for (com.froxynetwork.froxynetwork.network.output.data.server.config.ServerConfigDataOutput.ServerConfig variant : variants) {
@@ -101,8 +109,8 @@ public class ServerConfigManager {
 											System.arraycopy(vDatabase, 0, newDatabase, database.length,
 													vDatabase.length);
 										}
-										ServerConfig vServerConfig = new ServerConfig(vId, newDatabase,
-												variant.getMin(), variant.getMax());
+										ServerConfig vServerConfig = new ServerConfig(vId, types.register(vId),
+												newDatabase, variant.getMin(), variant.getMax());
 										vServerConfig.setParent(newSc);
 										newSc.addChildren(vServerConfig);
 										newServersConfig.put(vId, vServerConfig);
@@ -113,12 +121,18 @@ public class ServerConfigManager {
 							}
 							LOG.info("Loaded {} types and {} subtypes (total: {})", countType, countSubType,
 									(countType + countSubType));
-							// Save
-							serversConfig = newServersConfig;
 							List<ServerVps> newVps = new ArrayList<>();
 							for (com.froxynetwork.froxynetwork.network.output.data.server.config.ServerConfigDataOutput.VpsConfig vc : response
 									.getVps()) {
-								ServerVps vps = new ServerVps(vc.getId(), vc.getMaxServers());
+								ServerVps vps = new ServerVps(vc.getId(), vc.getMaxServers(), types);
+								// Start rate limit (global value, can be overridden per VPS)
+								Main m = Main.get();
+								vps.setStartRate(m.getIntProperty("start_rate." + vc.getId(),
+										m.getIntProperty("start_rate", vps.getStartRate())));
+								vps.setStartBurst(m.getIntProperty("start_burst." + vc.getId(),
+										m.getIntProperty("start_burst", vps.getStartBurst())));
+								vps.setStartLatencyTarget(m.getIntProperty("start_latency_target." + vc.getId(),
+										m.getIntProperty("start_latency_target", vps.getStartLatencyTarget())));
 								for (VpsConfigConfig c : vc.getConfig()) {
 									vps.setMin(c.getType(), c.getMin());
 									vps.setMax(c.getType(), c.getMax());
@@ -126,50 +140,74 @@ public class ServerConfigManager {
 								newVps.add(vps);
 							}
 							// Save
-							vps = newVps;
-							LOG.info("Got {} vps", vps.size());
+							ServerConfigSnapshot old = snapshot.get();
+							ServerConfigSnapshot newSnapshot = new ServerConfigSnapshot(old.getVersion() + 1,
+									newServersConfig, newVps);
+							snapshot.set(newSnapshot);
+							LOG.info("Got {} vps (config version {})", newVps.size(), newSnapshot.getVersion());
 							LOG.info("Server Config initialized");
 							then.run();
 						} catch (Exception ex) {
 							// Unknown exception
 							LOG.error("", ex);
 						} finally {
-							actuallyReloading = false;
+							actuallyReloading.set(false);
 						}
 					}
 
 					@Override
 					public void onFatalFailure(Throwable t) {
 						LOG.error("Fatal error: ", t);
-						actuallyReloading = false;
+						actuallyReloading.set(false);
 						then.run();
 					}
 
 					@Override
 					public void onFailure(RestException ex) {
 						LOG.error("Failure: ", ex);
-						actuallyReloading = false;
+						actuallyReloading.set(false);
 						then.run();
 					}
 				});
 	}
 
+	/**
+	 * Returns the last loaded config. Use the same snapshot to read multiple
+	 * values of the same config
+	 * 
+	 * @return The last loaded config
+	 */
+	public ServerConfigSnapshot getSnapshot() {
+		return snapshot.get();
+	}
+
 	public ServerConfig get(String type) {
-		return serversConfig.get(type);
+		return snapshot.get().get(type);
 	}
 
 	public boolean exist(String type) {
-		return serversConfig.containsKey(type);
+		return snapshot.get().exist(type);
 	}
 
 	public Collection<ServerConfig> getAll() {
-		return serversConfig.values();
+		return snapshot.get().getAll();
+	}
+
+	public List<ServerVps> getVps() {
+		return snapshot.get().getVps();
 	}
 
 	public ServerVps getVps(String vps) {
-		for (ServerVps v : this.vps)
-			if (v.getId().equalsIgnoreCase(vps))
-				return v;
-		return null;
+		return snapshot.get().getVps(vps);
+	}
+
+	/**
+	 * Normalize the id of a VPS, VPS ids are case insensitive
+	 * 
+	 * @param id The id
+	 * @return The id in lower case
+	 */
+	public static String normalize(String id) {
+		return id.toLowerCase();
 	}
 }
@@ -0,0 +1,104 @@
+package com.froxynetwork.coremanager.server.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Immutable view of the server config loaded by {@link ServerConfigManager}<br />
+ * A new snapshot is created and published at once by each reload, so readers
+ * never see types of a reload with VPS of another reload
+ */
+public class ServerConfigSnapshot {
+	/**
+	 * Empty config used before the first reload
+	 */
+	public static final ServerConfigSnapshot EMPTY = new ServerConfigSnapshot(0, new LinkedHashMap<>(),
+			new ArrayList<>());
+
+	/**
+	 * Increased by each reload
+	 */
+	@Getter
+	private long version;
+	/**
+	 * All types and variants per type
+	 */
+	private Map<String, ServerConfig> types;
+	/**
+	 * Types that are not a variant
+	 */
+	@Getter
+	private List<ServerConfig> roots;
+	/**
+	 * All VPS per normalized id (see {@link ServerConfigManager#normalize(String)})
+	 */
+	private Map<String, ServerVps> vpsById;
+	@Getter
+	private List<ServerVps> vps;
+
+	public ServerConfigSnapshot(long version, LinkedHashMap<String, ServerConfig> types, List<ServerVps> vps) {
+		this.version = version;
+		this.types = Collections.unmodifiableMap(types);
+		List<ServerConfig> roots = new ArrayList<>();
+		for (ServerConfig sc : types.values())
+			if (sc.getParent() == null)
+				roots.add(sc);
+		this.roots = Collections.unmodifiableList(roots);
+		LinkedHashMap<String, ServerVps> vpsById = new LinkedHashMap<>();
+		for (ServerVps sv : vps)
+			vpsById.put(ServerConfigManager.normalize(sv.getId()), sv);
+		this.vpsById = Collections.unmodifiableMap(vpsById);
+		this.vps = Collections.unmodifiableList(new ArrayList<>(vps));
+	}
+
+	public ServerConfig get(String type) {
+		return types.get(type);
+	}
+
+	public boolean exist(String type) {
+		return types.containsKey(type);
+	}
+
+	public Collection<ServerConfig> getAll() {
+		return types.values();
+	}
+
+	/**
+	 * @param id The id of the VPS, case insensitive
+	 * @return The VPS or null if not found
+	 */
+	public ServerVps getVps(String id) {
+		return id == null ? null : vpsById.get(ServerConfigManager.normalize(id));
+	}
+}
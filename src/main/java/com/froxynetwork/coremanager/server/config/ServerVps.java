@@ -1,10 +1,10 @@
 package com.froxynetwork.coremanager.server.config;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -39,50 +39,104 @@ public class ServerVps {
 	private String id;
 	@Getter
 	private int maxServers;
+	/**
+	 * Number of servers that can be started per minute
+	 */
+	@Getter
+	@Setter
+	private int startRate;
+	/**
+	 * Number of servers that can be started at once
+	 */
+	@Getter
+	@Setter
+	private int startBurst;
+	/**
+	 * Start time (in ms) above which the start rate is lowered
+	 */
+	@Getter
+	@Setter
+	private int startLatencyTarget;
 	@ToString.Exclude
-	private HashMap<String, Integer> min;
+	@EqualsAndHashCode.Exclude
+	private TypeRegistry types;
+	/**
+	 * Minimum per type id (see {@link TypeRegistry})
+	 */
 	@ToString.Exclude
-	private HashMap<String, Integer> max;
+	private int[] min;
+	/**
+	 * Maximum per type id (see {@link TypeRegistry})
+	 */
+	@ToString.Exclude
+	private int[] max;
 
-	public ServerVps(String id, int maxServers) {
+	public ServerVps(String id, int maxServers, TypeRegistry types) {
 		this.id = id;
 		this.maxServers = maxServers;
-		this.min = new HashMap<>();
-		this.max = new HashMap<>();
+		this.startRate = 30;
+		this.startBurst = 5;
+		this.startLatencyTarget = 30000;
+		this.types = types;
+		this.min = new int[types.size()];
+		this.max = new int[types.size()];
+	}
+
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @return The minimum of specific type on this VPS, 0 if not configured
+	 */
+	public int getMin(int typeId) {
+		return typeId >= 0 && typeId < min.length ? min[typeId] : 0;
 	}
 
-	public int getMin(String id) {
-		return min.get(id);
+	/**
+	 * Set the minimum of specific type. Only called while loading the config
+	 */
+	public void setMin(String type, int min) {
+		int typeId = types.register(type);
+		this.min = grow(this.min, typeId);
+		this.min[typeId] = min;
 	}
 
-	public void setMin(String id, int min) {
-		this.min.put(id, min);
+	/**
+	 * @param typeId The id of the type (see {@link TypeRegistry})
+	 * @return The maximum of specific type on this VPS, 0 if not configured
+	 */
+	public int getMax(int typeId) {
+		return typeId >= 0 && typeId < max.length ? max[typeId] : 0;
 	}
 
-	public int getMax(String id) {
-		return max.get(id);
+	/**
+	 * Set the maximum of specific type. Only called while loading the config
+	 */
+	public void setMax(String type, int max) {
+		int typeId = types.register(type);
+		this.max = grow(this.max, typeId);
+		this.max[typeId] = max;
 	}
 
-	public void setMax(String id, int max) {
-		this.max.put(id, max);
+	private static int[] grow(int[] array, int typeId) {
+		return typeId < array.length ? array : Arrays.copyOf(array, typeId + 1);
 	}
 
 	@ToString.Include(name = "min")
 	public String min() {
-		StringBuilder sb = new StringBuilder("min = [");
-		for (Entry<String, Integer> e : min.entrySet())
-			sb.append(e.getKey()).append(" = ").append(e.getValue()).append(", ");
-		sb.setLength(sb.length() - 2);
-		sb.append("]");
-		return sb.toString();
+		return toString("min", min);
 	}
 
 	@ToString.Include(name = "max")
 	public String max() {
-		StringBuilder sb = new StringBuilder("max = [");
-		for (Entry<String, Integer> e : max.entrySet())
-			sb.append(e.getKey()).append(" = ").append(e.getValue()).append(", ");
-		sb.setLength(sb.length() - 2);
+		return toString("max", max);
+	}
+
+	private String toString(String name, int[] values) {
+		StringBuilder sb = new StringBuilder(name).append(" = [");
+		for (int i = 0; i < values.length; i++)
+			if (values[i] != 0)
+				sb.append(types.name(i)).append(" = ").append(values[i]).append(", ");
+		if (sb.charAt(sb.length() - 1) == ' ')
+			sb.setLength(sb.length() - 2);
 		sb.append("]");
 		return sb.toString();
 	}
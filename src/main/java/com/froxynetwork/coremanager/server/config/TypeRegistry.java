@@ -0,0 +1,118 @@
+package com.froxynetwork.coremanager.server.config;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Give a small int id to each server type and variant, so types can be
+ * compared with == and used as index of arrays<br />
+ * Types are case insensitive. This registry is append-only: a type keeps its id
+ * across reloads, even if it has been removed from the config, so ids stored in
+ * {@link com.froxynetwork.coremanager.server.Server Server} and
+ * {@link com.froxynetwork.coremanager.server.TempServer TempServer} are never
+ * reused
+ */
+public class TypeRegistry {
+	public static final String BUNGEE = "BUNGEE";
+	/**
+	 * Id of {@link #BUNGEE}, always registered first
+	 */
+	public static final int BUNGEE_ID = 0;
+	/**
+	 * Returned by {@link #get(String)} if the type is unknown
+	 */
+	public static final int UNKNOWN = -1;
+
+	/**
+	 * Id of each type (in lower case)
+	 */
+	private ConcurrentHashMap<String, Integer> ids;
+	/**
+	 * Name of each type per id, replaced when a type is added
+	 */
+	private volatile String[] names;
+
+	public TypeRegistry() {
+		this.ids = new ConcurrentHashMap<>();
+		this.names = new String[0];
+		register(BUNGEE);
+	}
+
+	/**
+	 * Return the id of specific type, and register it if it's unknown
+	 * 
+	 * @param type The type
+	 * @return The id of this type
+	 */
+	public int register(String type) {
+		int id = get(type);
+		if (id != UNKNOWN)
+			return id;
+		synchronized (this) {
+			String key = type.toLowerCase();
+			Integer old = ids.get(key);
+			if (old != null)
+				return old;
+			id = names.length;
+			String[] newNames = Arrays.copyOf(names, id + 1);
+			newNames[id] = type;
+			// Publish the name before the id
+			names = newNames;
+			ids.put(key, id);
+			return id;
+		}
+	}
+
+	/**
+	 * @param type The type
+	 * @return The id of this type, or {@link #UNKNOWN} if it's not registered
+	 */
+	public int get(String type) {
+		if (type == null)
+			return UNKNOWN;
+		Integer id = ids.get(type.toLowerCase());
+		return id == null ? UNKNOWN : id;
+	}
+
+	/**
+	 * @param id The id of the type
+	 * @return The name of this type (as written the first time it has been
+	 *         registered), or null if this id is unknown
+	 */
+	public String name(int id) {
+		String[] names = this.names;
+		return id >= 0 && id < names.length ? names[id] : null;
+	}
+
+	/**
+	 * @return The number of registered types, all ids are lower than this value
+	 */
+	public int size() {
+		return names.length;
+	}
+}
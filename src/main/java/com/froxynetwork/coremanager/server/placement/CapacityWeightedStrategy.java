@@ -0,0 +1,45 @@
+package com.froxynetwork.coremanager.server.placement;
+
+import com.froxynetwork.coremanager.server.VPS;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Spread servers over all VPS proportionally to their capacity: open the server
+ * on the VPS that has the lowest load relative to its maximum amount of
+ * servers<br />
+ * Score is 1 + 1000 * (number of servers + 2 * number of temp servers) /
+ * maximum amount of servers
+ */
+public class CapacityWeightedStrategy implements PlacementStrategy {
+	public static final CapacityWeightedStrategy INSTANCE = new CapacityWeightedStrategy();
+
+	@Override
+	public int score(VPS vps, String type) {
+		int load = vps.getServerCount() + 2 * vps.getTempServerCount();
+		return 1 + (int) (1000L * load / Math.max(1, vps.getMaxServers()));
+	}
+}
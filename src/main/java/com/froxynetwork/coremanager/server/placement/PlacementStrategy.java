@@ -0,0 +1,69 @@
+package com.froxynetwork.coremanager.server.placement;
+
+import com.froxynetwork.coremanager.server.VPS;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Decide on which VPS a new server is opened<br />
+ * The VPS with the lowest score is chosen. A score of 0 means that the VPS
+ * can't be used
+ */
+public interface PlacementStrategy {
+
+	/**
+	 * Return the score of specific VPS for a new server of specific type. This
+	 * method is only called if the VPS can host a new server of this type (see
+	 * {@link VPS#isAvailable(String)})
+	 * 
+	 * @param vps  The VPS
+	 * @param type The type of the new server
+	 * @return The score (> 0) of this VPS, lower is better
+	 */
+	int score(VPS vps, String type);
+
+	/**
+	 * Return the strategy associated to specific name
+	 * 
+	 * @param name The name of the strategy (least_loaded, bin_packing or
+	 *             capacity_weighted)
+	 * @return The strategy or null if the name is unknown
+	 */
+	public static PlacementStrategy byName(String name) {
+		if (name == null)
+			return null;
+		switch (name.trim().toLowerCase()) {
+		case "least_loaded":
+			return LeastLoadedStrategy.INSTANCE;
+		case "bin_packing":
+			return BinPackingStrategy.INSTANCE;
+		case "capacity_weighted":
+			return CapacityWeightedStrategy.INSTANCE;
+		default:
+			return null;
+		}
+	}
+}
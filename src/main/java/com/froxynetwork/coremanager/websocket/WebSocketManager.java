@@ -2,14 +2,33 @@ package com.froxynetwork.coremanager.websocket;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.java_websocket.framing.CloseFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.cluster.ClusterEventLoop;
 import com.froxynetwork.coremanager.server.VPS;
+import com.froxynetwork.coremanager.websocket.commands.AckCommand;
+import com.froxynetwork.coremanager.websocket.commands.BinaryCommand;
+import com.froxynetwork.coremanager.websocket.commands.CapabilitiesCommand;
+import com.froxynetwork.coremanager.websocket.commands.InventoryCommand;
+import com.froxynetwork.coremanager.websocket.commands.PongCommand;
+import com.froxynetwork.coremanager.websocket.commands.ResumeCommand;
 import com.froxynetwork.coremanager.websocket.commands.ServerErrorCommand;
 import com.froxynetwork.coremanager.websocket.commands.ServerRegisterCommand;
 import com.froxynetwork.coremanager.websocket.commands.ServerUnregisterCommand;
@@ -45,14 +64,70 @@ import lombok.Getter;
  * 
  * @author 0ddlyoko
  */
+/**
+ * Accept WebSocket connections of the VPS<br />
+ * To avoid a spike when all VPS reconnect at the same time, at most
+ * "auth_max_concurrent" connections can be authenticating at the same time
+ * (other connections are closed with {@link CloseFrame#TRY_AGAIN_LATER} and
+ * "Retry in &lt;ms&gt; ms" as reason, see messages.txt), and at most
+ * "auth_link_rate" VPS are linked per second. Commands received before the
+ * link are executed once the VPS is linked<br />
+ * Refused connections are closed before their token is checked: FroxyNetwork
+ * checks the token as soon as the agent sends it, without any hook to delay it.
+ * Instead, each refused connection gets its own retry slot, "auth_link_rate"
+ * slots per second, so that refused VPS come back at the rate they can be
+ * linked instead of all together
+ */
 public class WebSocketManager {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
 	@Getter
 	private WebSocketServer webSocketServer;
-	private HashMap<WebSocketServerImpl, VPS> links;
+	private ConcurrentHashMap<WebSocketServerImpl, VPS> links;
+	/**
+	 * Actions waiting for authenticated WebSockets to be linked (only used on the
+	 * {@link ClusterEventLoop})
+	 */
+	private HashMap<WebSocketServerImpl, List<Consumer<VPS>>> pending;
+	/**
+	 * Authenticated WebSockets waiting to be linked
+	 */
+	private ConcurrentLinkedQueue<WebSocketServerImpl> admissions;
+	private ScheduledExecutorService admissionExecutor;
+	/**
+	 * Number of WebSockets that are authenticating
+	 */
+	private AtomicInteger handshakes;
+	private int maxHandshakes;
+	/**
+	 * Minimum delay (in ms) before a refused VPS can retry
+	 */
+	private static final long MIN_RETRY = 1000;
+	/**
+	 * Next free retry slot ({@link System#currentTimeMillis()})
+	 */
+	private AtomicLong nextRetry;
+	/**
+	 * Time (in ms) between two retry slots
+	 */
+	private long retrySpacing;
 
 	public WebSocketManager(String url, int port) {
-		links = new HashMap<>();
+		links = new ConcurrentHashMap<>();
+		pending = new HashMap<>();
+		admissions = new ConcurrentLinkedQueue<>();
+		handshakes = new AtomicInteger();
+		maxHandshakes = Main.get().getIntProperty("auth_max_concurrent", 32);
+		int linkRate = Main.get().getIntProperty("auth_link_rate", 20);
+		LOG.info("auth_max_concurrent = {}, auth_link_rate = {}", maxHandshakes, linkRate);
+		nextRetry = new AtomicLong();
+		retrySpacing = Math.max(1, TimeUnit.SECONDS.toMillis(1) / linkRate);
+		admissionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "CoreManager - Admission");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1, TimeUnit.SECONDS.toMicros(1) / linkRate);
+		admissionExecutor.scheduleWithFixedDelay(this::admit, period, period, TimeUnit.MICROSECONDS);
 		webSocketServer = WebSocketFactory.server(new InetSocketAddress(url, port),
 				new WebSocketTokenAuthentication(Main.get().getNetworkManager()));
 		webSocketServer.registerWebSocketConnection(this::onNewConnection);
@@ -60,49 +135,145 @@ public class WebSocketManager {
 	}
 
 	private void onNewConnection(WebSocketServerImpl wssi) {
+		if (handshakes.incrementAndGet() > maxHandshakes) {
+			handshakes.decrementAndGet();
+			long retry = retryDelay();
+			LOG.warn("Too many WebSockets are authenticating, refusing a new one (retry in {} ms)", retry);
+			wssi.disconnect(CloseFrame.TRY_AGAIN_LATER, "Retry in " + retry + " ms");
+			return;
+		}
+		AtomicBoolean authenticating = new AtomicBoolean(true);
 		wssi.registerWebSocketAuthentication(() -> {
-			Object obj = wssi.get(WebSocketTokenAuthentication.TOKEN);
-			String id = obj == null ? null : obj.toString();
-			if (id == null || "".equalsIgnoreCase(id.trim())) {
-				// Wtf ?
-				LOG.error("WebSocket is authentified but doesn't have an id ! Closing it");
-				wssi.disconnect(CloseFrame.NORMAL, "Id doesn't exist");
-				return;
-			}
-			VPS vps = Main.get().getServerManager().getVPS(id);
-			if (vps == null) {
-				LOG.error("WebSocket tried to authenticate as vps {} but this vps doesn't exist", id);
-				wssi.disconnect(CloseFrame.NORMAL, "Vps doesn't exist");
-				return;
-			}
-			if (vps.getWebSocket() != null && vps.getWebSocket().isConnected()) {
-				LOG.error("WebSocket tried to authenticate as vps {} but there is already a link", id);
-				wssi.disconnect(CloseFrame.NORMAL, "Vps already connected");
-				return;
-			}
-			vps.setWebSocket(wssi);
-			links.put(wssi, vps);
+			if (authenticating.compareAndSet(true, false))
+				handshakes.decrementAndGet();
+			// Commands received from now are executed once this WebSocket is linked
+			Main.get().getClusterEventLoop().execute(() -> pending.put(wssi, new ArrayList<>()));
+			admissions.add(wssi);
 		});
+		wssi.registerCommand(new AckCommand(wssi));
+		wssi.registerCommand(new BinaryCommand(wssi));
+		wssi.registerCommand(new CapabilitiesCommand(wssi));
+		wssi.registerCommand(new InventoryCommand(wssi));
+		wssi.registerCommand(new PongCommand(wssi));
+		wssi.registerCommand(new ResumeCommand(wssi));
 		wssi.registerCommand(new ServerErrorCommand(wssi));
 		wssi.registerCommand(new ServerRegisterCommand(wssi));
 		wssi.registerCommand(new ServerUnregisterCommand(wssi));
 		wssi.registerWebSocketDisconnection(remote -> {
-			links.remove(wssi);
-			Object obj = wssi.get(WebSocketTokenAuthentication.TOKEN);
-			if (obj == null)
-				return;
-			VPS vps = Main.get().getServerManager().getVPS(obj.toString());
-			if (vps == null)
-				return;
-			vps.setWebSocket(null);
+			if (authenticating.compareAndSet(true, false))
+				handshakes.decrementAndGet();
+			Main.get().getClusterEventLoop().execute(() -> {
+				pending.remove(wssi);
+				VPS vps = links.remove(wssi);
+				// Do not unlink the VPS if this connection has been refused
+				if (vps != null && vps.getWebSocket() == wssi)
+					vps.setWebSocket(null);
+			});
 		});
 	}
 
+	/**
+	 * Reserve the next retry slot for a refused VPS
+	 * 
+	 * @return The delay (in ms) the VPS has to wait before reconnecting
+	 */
+	private long retryDelay() {
+		long now = System.currentTimeMillis();
+		long slot = nextRetry.getAndUpdate(next -> Math.max(next, now + MIN_RETRY) + retrySpacing);
+		slot = Math.max(slot, now + MIN_RETRY);
+		// Random position in the slot
+		return slot - now + ThreadLocalRandom.current().nextLong(retrySpacing);
+	}
+
+	/**
+	 * Link the next authenticated WebSocket
+	 */
+	private void admit() {
+		WebSocketServerImpl wssi = admissions.poll();
+		if (wssi == null)
+			return;
+		try {
+			Main.get().getClusterEventLoop().execute(() -> link(wssi));
+		} catch (Exception ex) {
+			// Catch everything, an exception would cancel the next admissions
+			LOG.error("", ex);
+		}
+	}
+
+	/**
+	 * Link an authenticated WebSocket with its VPS, then execute the commands
+	 * received in the meantime. Executed on the {@link ClusterEventLoop} so that
+	 * two connections of the same VPS can't be linked at the same time
+	 */
+	private void link(WebSocketServerImpl wssi) {
+		List<Consumer<VPS>> actions = pending.remove(wssi);
+		// Disconnected while waiting
+		if (actions == null || !wssi.isConnected())
+			return;
+		Object obj = wssi.get(WebSocketTokenAuthentication.TOKEN);
+		String id = obj == null ? null : obj.toString();
+		if (id == null || "".equalsIgnoreCase(id.trim())) {
+			// Wtf ?
+			LOG.error("WebSocket is authentified but doesn't have an id ! Closing it");
+			wssi.disconnect(CloseFrame.NORMAL, "Id doesn't exist");
+			return;
+		}
+		VPS vps = Main.get().getServerManager().getVPS(id);
+		if (vps == null) {
+			LOG.error("WebSocket tried to authenticate as vps {} but this vps doesn't exist", id);
+			wssi.disconnect(CloseFrame.NORMAL, "Vps doesn't exist");
+			return;
+		}
+		if (vps.getWebSocket() != null && vps.getWebSocket().isConnected()) {
+			LOG.error("WebSocket tried to authenticate as vps {} but there is already a link", id);
+			wssi.disconnect(CloseFrame.NORMAL, "Vps already connected");
+			return;
+		}
+		links.put(wssi, vps);
+		// Link the VPS, this directly releases actions waiting for this link
+		vps.setWebSocket(wssi);
+		for (Consumer<VPS> action : actions)
+			try {
+				action.accept(vps);
+			} catch (Exception ex) {
+				LOG.error("", ex);
+			}
+	}
+
 	public VPS get(WebSocketServerImpl wssi) {
 		return links.get(wssi);
 	}
 
+	/**
+	 * Execute an action with the VPS linked to specific WebSocket, on the
+	 * {@link ClusterEventLoop}. If the WebSocket is authenticated but not linked
+	 * yet, the action is executed once it's linked<br />
+	 * If there is no link, the WebSocket is closed
+	 * 
+	 * @param wssi   The WebSocket
+	 * @param action The action
+	 */
+	public void execute(WebSocketServerImpl wssi, Consumer<VPS> action) {
+		Main.get().getClusterEventLoop().execute(() -> {
+			VPS vps = links.get(wssi);
+			if (vps == null) {
+				List<Consumer<VPS>> actions = pending.get(wssi);
+				if (actions != null) {
+					// Not linked yet
+					actions.add(action);
+					return;
+				}
+				// WTF ?
+				LOG.error("No VPS found for webSocket ! Closing it");
+				wssi.disconnect(CloseFrame.NORMAL, "No VPS link found");
+				return;
+			}
+			action.accept(vps);
+		});
+	}
+
 	public void stop() {
+		admissionExecutor.shutdownNow();
 		for (WebSocketServerImpl wssi : links.keySet())
 			wssi.closeAll();
 		try {
@@ -0,0 +1,171 @@
+package com.froxynetwork.coremanager.websocket.commands;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.server.VPS;
+import com.froxynetwork.coremanager.websocket.protocol.BinaryProtocol;
+import com.froxynetwork.coremanager.websocket.protocol.BinaryReader;
+import com.froxynetwork.coremanager.websocket.protocol.StringTable;
+import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class BinaryCommand implements IWebSocketCommander {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	private WebSocketServerImpl webSocket;
+	private BinaryReader reader;
+	private StringTable strings;
+
+	public BinaryCommand(WebSocketServerImpl webSocket) {
+		this.webSocket = webSocket;
+		this.reader = new BinaryReader();
+		this.strings = new StringTable();
+	}
+
+	@Override
+	public String name() {
+		return BinaryProtocol.CHANNEL;
+	}
+
+	@Override
+	public String description() {
+		return "Compact binary commands";
+	}
+
+	@Override
+	public void onReceive(String message) {
+		// bin <base64 frame>
+		if (message == null)
+			return;
+		if (!webSocket.isAuthenticated()) {
+			LOG.error("Got a binary frame from an unauthenticated server");
+			return;
+		}
+		// Frames are decoded on the thread of this connection, in order. Only the
+		// decoded commands are executed on the cluster event loop
+		Frame frame = decode(message);
+		Main.get().getWebSocketManager().execute(webSocket, vps -> {
+			// Binary frames are opt-in
+			if (!vps.hasCapability(BinaryProtocol.CAPABILITY)) {
+				LOG.error("Got a binary frame from vps {} but it didn't announce the \"{}\" capability, ignoring it",
+						vps.getId(), BinaryProtocol.CAPABILITY);
+				return;
+			}
+			frame.execute(vps);
+		});
+	}
+
+	/**
+	 * Decode a frame. Commands read before an invalid part are kept
+	 */
+	private Frame decode(String message) {
+		Frame frame = new Frame();
+		try {
+			reader.reset(message);
+			while (reader.hasRemaining()) {
+				int opcode = reader.readByte();
+				switch (opcode) {
+				case BinaryProtocol.DEFINE:
+					strings.define(reader.readVarInt(), reader.readString());
+					break;
+				case BinaryProtocol.ERROR:
+					frame.add(opcode, reader.readUUID(), null);
+					break;
+				case BinaryProtocol.REGISTER:
+					UUID uuid = reader.readUUID();
+					frame.add(opcode, uuid, strings.get(reader.readVarInt()));
+					break;
+				case BinaryProtocol.UNREGISTER:
+					String id = strings.get(reader.readVarInt());
+					frame.add(opcode, id,
+							strings.getType(reader.readVarInt(), Main.get().getServerConfigManager().getTypes()));
+					break;
+				default:
+					frame.invalid = "Unknown opcode " + opcode;
+					return frame;
+				}
+			}
+		} catch (IllegalArgumentException ex) {
+			frame.invalid = ex.getMessage();
+		}
+		return frame;
+	}
+
+	/**
+	 * Commands decoded from a frame. Arguments are stored in arrays so that a
+	 * command doesn't allocate more than its uuid
+	 */
+	private static class Frame {
+		private static final Logger LOG = LoggerFactory.getLogger(BinaryCommand.class);
+		private int size;
+		private int[] opcodes = new int[8];
+		private Object[] first = new Object[8];
+		private Object[] second = new Object[8];
+		/**
+		 * Why the end of the frame has been ignored, null if the frame is valid
+		 */
+		private String invalid;
+
+		private void add(int opcode, Object a, Object b) {
+			if (size == opcodes.length) {
+				opcodes = Arrays.copyOf(opcodes, size * 2);
+				first = Arrays.copyOf(first, size * 2);
+				second = Arrays.copyOf(second, size * 2);
+			}
+			opcodes[size] = opcode;
+			first[size] = a;
+			second[size] = b;
+			size++;
+		}
+
+		/**
+		 * Execute the commands of this frame, on the cluster event loop
+		 */
+		private void execute(VPS vps) {
+			for (int i = 0; i < size; i++) {
+				switch (opcodes[i]) {
+				case BinaryProtocol.ERROR:
+					Main.get().getServerManager().onError(vps, (UUID) first[i]);
+					break;
+				case BinaryProtocol.REGISTER:
+					vps.onRegister((UUID) first[i], (String) second[i]);
+					break;
+				case BinaryProtocol.UNREGISTER:
+					vps.onUnregister((String) first[i], (String) second[i]);
+					break;
+				}
+			}
+			if (invalid != null)
+				LOG.error("Invalid binary frame from vps {}: {}", vps.getId(), invalid);
+		}
+	}
+}
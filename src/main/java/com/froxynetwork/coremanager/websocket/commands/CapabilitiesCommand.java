@@ -0,0 +1,88 @@
+package com.froxynetwork.coremanager.websocket.commands;
+
+import java.util.HashSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.server.BroadcastChannel;
+import com.froxynetwork.coremanager.server.LinkHealth;
+import com.froxynetwork.coremanager.server.OutboundQueue;
+import com.froxynetwork.coremanager.websocket.protocol.BinaryProtocol;
+import com.froxynetwork.coremanager.websocket.protocol.Tokenizer;
+import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class CapabilitiesCommand implements IWebSocketCommander {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	/**
+	 * Capabilities supported by the CoreManager, sent back to the agent
+	 */
+	public static final String SUPPORTED = BroadcastChannel.BATCH + " " + BinaryProtocol.CAPABILITY + " "
+			+ OutboundQueue.SEQ + " " + OutboundQueue.RESYNC + " " + LinkHealth.CAPABILITY;
+	private Tokenizer tokenizer = new Tokenizer();
+	private WebSocketServerImpl webSocket;
+
+	public CapabilitiesCommand(WebSocketServerImpl webSocket) {
+		this.webSocket = webSocket;
+	}
+
+	@Override
+	public String name() {
+		return "capabilities";
+	}
+
+	@Override
+	public String description() {
+		return "Features supported by the VPS";
+	}
+
+	@Override
+	public void onReceive(String message) {
+		// capabilities <capability> [<capability> ...]
+		if (message == null)
+			return;
+		if (!webSocket.isAuthenticated()) {
+			LOG.error("Got \"capabilities {}\" from an unauthenticated server", message);
+			return;
+		}
+		HashSet<String> capabilities = new HashSet<>();
+		tokenizer.reset(message);
+		while (tokenizer.next())
+			capabilities.add(tokenizer.token());
+		Main.get().getWebSocketManager().execute(webSocket, vps -> vps.setCapabilities(capabilities));
+		// Tell the agent what it can use
+		try {
+			webSocket.sendCommand("capabilities", SUPPORTED);
+		} catch (Exception ex) {
+			LOG.error("Error while sending capabilities");
+			LOG.error("", ex);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.froxynetwork.coremanager.websocket.commands;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.websocket.protocol.Tokenizer;
+import com.froxynetwork.coremanager.websocket.protocol.UuidParser;
+import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class InventoryCommand implements IWebSocketCommander {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	private Tokenizer tokenizer = new Tokenizer();
+	private WebSocketServerImpl webSocket;
+
+	public InventoryCommand(WebSocketServerImpl webSocket) {
+		this.webSocket = webSocket;
+	}
+
+	@Override
+	public String name() {
+		return "inventory";
+	}
+
+	@Override
+	public String description() {
+		return "All servers and start requests of the VPS";
+	}
+
+	@Override
+	public void onReceive(String message) {
+		// inventory [<id>:<type> ...] [<uuid> ...]
+		if (message == null)
+			message = "";
+		if (!webSocket.isAuthenticated()) {
+			LOG.error("Got \"inventory {}\" from an unauthenticated server", message);
+			return;
+		}
+		HashMap<String, String> running = new HashMap<>();
+		HashSet<UUID> pending = new HashSet<>();
+		tokenizer.reset(message);
+		while (tokenizer.next()) {
+			int colon = message.indexOf(':', tokenizer.start());
+			if (colon != -1 && colon < tokenizer.end()) {
+				// Running server
+				if (colon == tokenizer.start() || colon == tokenizer.end() - 1) {
+					LOG.error("Invalid server in inventory: {}", tokenizer.token());
+					return;
+				}
+				running.put(message.substring(tokenizer.start(), colon), message.substring(colon + 1, tokenizer.end()));
+			} else {
+				// Start request
+				UUID uuid = UuidParser.parse(message, tokenizer.start(), tokenizer.end());
+				if (uuid == null) {
+					LOG.error("Invalid uuid in inventory: {}", tokenizer.token());
+					return;
+				}
+				pending.add(uuid);
+			}
+		}
+		Main.get().getWebSocketManager().execute(webSocket, vps -> vps.inventory(running, pending));
+	}
+}
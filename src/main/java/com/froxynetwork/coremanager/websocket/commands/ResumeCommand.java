@@ -0,0 +1,73 @@
+package com.froxynetwork.coremanager.websocket.commands;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.coremanager.Main;
+import com.froxynetwork.coremanager.websocket.protocol.Tokenizer;
+import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class ResumeCommand implements IWebSocketCommander {
+	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	private Tokenizer tokenizer = new Tokenizer();
+	private WebSocketServerImpl webSocket;
+
+	public ResumeCommand(WebSocketServerImpl webSocket) {
+		this.webSocket = webSocket;
+	}
+
+	@Override
+	public String name() {
+		return "resume";
+	}
+
+	@Override
+	public String description() {
+		return "Resume the session of a reconnected VPS";
+	}
+
+	@Override
+	public void onReceive(String message) {
+		// resume <session> <last acked seq>
+		if (message == null)
+			return;
+		if (!webSocket.isAuthenticated()) {
+			LOG.error("Got \"resume {}\" from an unauthenticated server", message);
+			return;
+		}
+		tokenizer.reset(message);
+		String session = tokenizer.next() ? tokenizer.token() : null;
+		long seq = session != null && tokenizer.next() ? tokenizer.longToken() : -1;
+		if (seq < 0) {
+			LOG.error("Invalid message: {}", message);
+			return;
+		}
+		Main.get().getWebSocketManager().execute(webSocket, vps -> vps.resume(session, seq));
+	}
+}
@@ -6,7 +6,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
-import com.froxynetwork.coremanager.server.VPS;
+import com.froxynetwork.coremanager.websocket.protocol.Tokenizer;
+import com.froxynetwork.coremanager.websocket.protocol.UuidParser;
 import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
 import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
 
@@ -37,6 +38,7 @@ import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
  */
 public class ServerErrorCommand implements IWebSocketCommander {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
+	private Tokenizer tokenizer = new Tokenizer();
 	private WebSocketServerImpl webSocket;
 
 	public ServerErrorCommand(WebSocketServerImpl webSocket) {
@@ -62,14 +64,14 @@ public class ServerErrorCommand implements IWebSocketCommander {
 			LOG.error("Got command \"error\" but this WebSocket is not authentified");
 			return;
 		}
-		UUID uuid = null;
-		try {
-			uuid = UUID.fromString(message);
-		} catch (Exception ex) {
+		tokenizer.reset(message);
+		UUID uuid = tokenizer.next() ? UuidParser.parse(message, tokenizer.start(), tokenizer.end()) : null;
+		if (uuid == null) {
 			LOG.warn("{} is not a valid uuid", message);
 			return;
 		}
-		for (VPS vps : Main.get().getServerManager().getVps())
-			vps.error(uuid);
+		// Only the VPS of the temp server can fail it
+		Main.get().getWebSocketManager().execute(webSocket,
+				vps -> Main.get().getServerManager().onError(vps, uuid));
 	}
 }
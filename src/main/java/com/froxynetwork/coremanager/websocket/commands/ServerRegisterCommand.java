@@ -1,14 +1,13 @@
 package com.froxynetwork.coremanager.websocket.commands;
 
 import java.util.UUID;
-import java.util.regex.Pattern;
 
-import org.java_websocket.framing.CloseFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
-import com.froxynetwork.coremanager.server.VPS;
+import com.froxynetwork.coremanager.websocket.protocol.Tokenizer;
+import com.froxynetwork.coremanager.websocket.protocol.UuidParser;
 import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
 import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
 
@@ -39,7 +38,7 @@ import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
  */
 public class ServerRegisterCommand implements IWebSocketCommander {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
-	private Pattern spacePattern = Pattern.compile(" ");
+	private Tokenizer tokenizer = new Tokenizer();
 	private WebSocketServerImpl webSocket;
 
 	public ServerRegisterCommand(WebSocketServerImpl webSocket) {
@@ -66,28 +65,24 @@ public class ServerRegisterCommand implements IWebSocketCommander {
 			LOG.error("Got \"register {}\" from an unauthenticated server", message);
 			return;
 		}
-		String[] split = spacePattern.split(message);
-		if (split.length < 2) {
+		tokenizer.reset(message);
+		if (!tokenizer.next()) {
 			// Error
 			LOG.error("Invalid message: {}", message);
 			return;
 		}
-		UUID uuid = null;
-		try {
-			uuid = UUID.fromString(split[0]);
-		} catch (Exception ex) {
+		UUID uuid = UuidParser.parse(message, tokenizer.start(), tokenizer.end());
+		if (uuid == null) {
 			LOG.warn("{} is not a valid uuid", message);
 			return;
 		}
-		String id = split[1];
-
-		VPS vps = Main.get().getWebSocketManager().get(webSocket);
-		if (vps == null) {
-			// WTF ?
-			LOG.error("No VPS found for webSocket ! Closing it");
-			webSocket.disconnect(CloseFrame.NORMAL, "No VPS link found");
+		if (!tokenizer.next()) {
+			// Error
+			LOG.error("Invalid message: {}", message);
 			return;
 		}
-		vps.onRegister(uuid, id);
+		String id = tokenizer.token();
+
+		Main.get().getWebSocketManager().execute(webSocket, vps -> vps.onRegister(uuid, id));
 	}
 }
@@ -1,13 +1,10 @@
 package com.froxynetwork.coremanager.websocket.commands;
 
-import java.util.regex.Pattern;
-
-import org.java_websocket.framing.CloseFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.froxynetwork.coremanager.Main;
-import com.froxynetwork.coremanager.server.VPS;
+import com.froxynetwork.coremanager.websocket.protocol.Tokenizer;
 import com.froxynetwork.froxynetwork.network.websocket.IWebSocketCommander;
 import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
 
@@ -38,7 +35,7 @@ import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
  */
 public class ServerUnregisterCommand implements IWebSocketCommander {
 	private final Logger LOG = LoggerFactory.getLogger(getClass());
-	private Pattern spacePattern = Pattern.compile(" ");
+	private Tokenizer tokenizer = new Tokenizer();
 	private WebSocketServerImpl webSocket;
 
 	public ServerUnregisterCommand(WebSocketServerImpl webSocket) {
@@ -58,27 +55,27 @@ public class ServerUnregisterCommand implements IWebSocketCommander {
 	@Override
 	public void onReceive(String message) {
 		// unregister <id> <type>
+		if (message == null)
+			return;
 		if (!webSocket.isAuthenticated()) {
 			// Server not authenticated
 			LOG.error("Got \"unregister {}\" from an unauthenticated server", message);
 			return;
 		}
-		String[] split = spacePattern.split(message);
-		if (split.length < 2) {
+		tokenizer.reset(message);
+		if (!tokenizer.next()) {
 			// Error
 			LOG.error("Invalid message: {}", message);
 			return;
 		}
-		String id = split[0];
-		String type = split[1];
-
-		VPS vps = Main.get().getWebSocketManager().get(webSocket);
-		if (vps == null) {
-			// WTF ?
-			LOG.error("No VPS found for webSocket ! Closing it");
-			webSocket.disconnect(CloseFrame.NORMAL, "No VPS link found");
+		String id = tokenizer.token();
+		if (!tokenizer.next()) {
+			// Error
+			LOG.error("Invalid message: {}", message);
 			return;
 		}
-		vps.onUnregister(id, type);
+		String type = tokenizer.token();
+
+		Main.get().getWebSocketManager().execute(webSocket, vps -> vps.onUnregister(id, type));
 	}
 }
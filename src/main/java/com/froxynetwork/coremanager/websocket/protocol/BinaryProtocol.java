@@ -0,0 +1,69 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Compact binary commands sent by agents that have received the "binary"
+ * capability (see messages.txt)<br />
+ * A frame is a sequence of commands, each command starts with its opcode.
+ * Server ids and types are sent once with {@link #DEFINE} and then referenced
+ * by their index
+ */
+public final class BinaryProtocol {
+	/**
+	 * Name of the text command that transports binary frames (encoded in Base64)
+	 */
+	public static final String CHANNEL = "bin";
+	/**
+	 * Capability announced by the CoreManager and the agents that support binary
+	 * frames
+	 */
+	public static final String CAPABILITY = "binary";
+	/**
+	 * Maximum number of strings defined by a connection
+	 */
+	public static final int MAX_STRINGS = 65536;
+
+	/**
+	 * DEFINE &lt;index: VarInt&gt; &lt;string&gt;
+	 */
+	public static final int DEFINE = 0;
+	/**
+	 * ERROR &lt;uuid&gt;
+	 */
+	public static final int ERROR = 1;
+	/**
+	 * REGISTER &lt;uuid&gt; &lt;id: VarInt&gt;
+	 */
+	public static final int REGISTER = 2;
+	/**
+	 * UNREGISTER &lt;id: VarInt&gt; &lt;type: VarInt&gt;
+	 */
+	public static final int UNREGISTER = 3;
+
+	private BinaryProtocol() {
+	}
+}
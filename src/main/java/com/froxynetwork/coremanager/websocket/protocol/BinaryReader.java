@@ -0,0 +1,157 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Read values from a binary frame transported as Base64 text<br />
+ * The frame is decoded into an internal buffer that is reused by the next
+ * frames, so reading numbers and uuids doesn't allocate anything
+ */
+public class BinaryReader {
+	private static final int[] BASE64 = new int[128];
+
+	static {
+		for (int i = 0; i < BASE64.length; i++)
+			BASE64[i] = -1;
+		String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for (int i = 0; i < chars.length(); i++)
+			BASE64[chars.charAt(i)] = i;
+	}
+
+	private byte[] buffer;
+	private int position;
+	private int limit;
+
+	public BinaryReader() {
+		this.buffer = new byte[256];
+		this.position = 0;
+		this.limit = 0;
+	}
+
+	/**
+	 * Decode a Base64 frame and read it from the beginning
+	 * 
+	 * @param base64 The frame
+	 * @throws IllegalArgumentException If the frame is not valid Base64
+	 */
+	public void reset(String base64) {
+		position = 0;
+		limit = 0;
+		int length = base64.length();
+		while (length > 0 && base64.charAt(length - 1) == '=')
+			length--;
+		if (length % 4 == 1)
+			throw new IllegalArgumentException("Invalid Base64 length");
+		int size = length * 3 / 4;
+		if (buffer.length < size)
+			buffer = new byte[Math.max(size, buffer.length * 2)];
+		int bits = 0;
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			char c = base64.charAt(i);
+			int value = c < 128 ? BASE64[c] : -1;
+			if (value < 0)
+				throw new IllegalArgumentException("Invalid Base64 character at " + i);
+			bits = (bits << 6) | value;
+			count += 6;
+			if (count >= 8) {
+				count -= 8;
+				buffer[limit++] = (byte) (bits >> count);
+			}
+		}
+	}
+
+	public boolean hasRemaining() {
+		return position < limit;
+	}
+
+	private void require(int bytes) {
+		if (limit - position < bytes)
+			throw new IllegalArgumentException("Unexpected end of frame");
+	}
+
+	/**
+	 * @return The next unsigned byte
+	 */
+	public int readByte() {
+		require(1);
+		return buffer[position++] & 0xFF;
+	}
+
+	/**
+	 * Read a positive number encoded on 1 to 5 bytes (7 bits per byte, the
+	 * highest bit tells if another byte follows)
+	 * 
+	 * @return The number
+	 */
+	public int readVarInt() {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0)
+					throw new IllegalArgumentException("VarInt is negative");
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("VarInt is too long");
+	}
+
+	/**
+	 * @return The next 8 bytes as a big-endian long
+	 */
+	public long readLong() {
+		require(8);
+		long value = 0;
+		for (int i = 0; i < 8; i++)
+			value = (value << 8) | (buffer[position++] & 0xFF);
+		return value;
+	}
+
+	/**
+	 * @return The next 16 bytes as an uuid (most significant bits first)
+	 */
+	public UUID readUUID() {
+		long most = readLong();
+		long least = readLong();
+		return new UUID(most, least);
+	}
+
+	/**
+	 * @return The next UTF-8 string, prefixed by its length in bytes (VarInt)
+	 */
+	public String readString() {
+		int length = readVarInt();
+		require(length);
+		String str = new String(buffer, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return str;
+	}
+}
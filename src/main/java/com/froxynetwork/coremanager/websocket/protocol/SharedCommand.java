@@ -0,0 +1,147 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.framing.TextFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+import lombok.Getter;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Command sent to many VPS, encoded once<br />
+ * The UTF-8 payload ("&lt;channel&gt; &lt;message&gt;", the text frame written
+ * by {@link WebSocketServerImpl#sendCommand(String, String)}) is built on the
+ * first send and shared, read-only, by all connections. Each connection only
+ * gets a small {@link TextFrame} pointing to it, that Java-WebSocket writes
+ * with its header<br />
+ * If the Java-WebSocket connection can't be found behind a
+ * {@link WebSocketServerImpl}, the command is sent with
+ * {@link WebSocketServerImpl#sendCommand(String, String)}
+ */
+public class SharedCommand {
+	private static final Logger LOG = LoggerFactory.getLogger(SharedCommand.class);
+	/**
+	 * Field of each {@link WebSocketServerImpl} class holding the connection
+	 */
+	private static final ClassValue<Optional<Field>> CONNECTION = new ClassValue<Optional<Field>>() {
+		@Override
+		protected Optional<Field> computeValue(Class<?> type) {
+			return Optional.ofNullable(find(type));
+		}
+	};
+
+	@Getter
+	private String channel;
+	@Getter
+	private String message;
+	private volatile ByteBuffer payload;
+
+	public SharedCommand(String channel, String message) {
+		this.channel = channel;
+		this.message = message;
+	}
+
+	/**
+	 * @return The UTF-8 payload of this command, read-only and shared
+	 */
+	public ByteBuffer payload() {
+		ByteBuffer p = payload;
+		if (p == null) {
+			// Another thread may encode it at the same time, both payloads are equal
+			byte[] bytes = (channel + " " + message).getBytes(StandardCharsets.UTF_8);
+			payload = p = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+		}
+		return p;
+	}
+
+	/**
+	 * @return A new frame for one connection, sharing the payload of this command
+	 */
+	public TextFrame frame() {
+		TextFrame frame = new TextFrame();
+		// duplicate() doesn't copy the payload but has its own position, so that
+		// connections can write it at the same time
+		frame.setPayload(payload().duplicate());
+		return frame;
+	}
+
+	/**
+	 * Send this command to a VPS
+	 * 
+	 * @param webSocket The WebSocket of the VPS
+	 */
+	public void send(WebSocketServerImpl webSocket) {
+		WebSocket conn = connection(webSocket);
+		if (conn == null)
+			webSocket.sendCommand(channel, message);
+		else
+			conn.sendFrame(frame());
+	}
+
+	/**
+	 * @return The Java-WebSocket connection behind webSocket, or null if it can't
+	 *         be found
+	 */
+	private static WebSocket connection(WebSocketServerImpl webSocket) {
+		Field f = CONNECTION.get(webSocket.getClass()).orElse(null);
+		if (f == null)
+			return null;
+		try {
+			return (WebSocket) f.get(webSocket);
+		} catch (IllegalAccessException ex) {
+			return null;
+		}
+	}
+
+	private static Field find(Class<?> clazz) {
+		// The connection isn't exposed by FroxyNetwork, look for it by type
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+			for (Field f : c.getDeclaredFields()) {
+				if (!WebSocket.class.isAssignableFrom(f.getType()))
+					continue;
+				try {
+					f.setAccessible(true);
+					return f;
+				} catch (RuntimeException ex) {
+					LOG.error("Can't access the connection of {}", clazz.getName());
+					LOG.error("", ex);
+					return null;
+				}
+			}
+		}
+		LOG.warn("No connection found in {}, shared commands are sent one by one", clazz.getName());
+		return null;
+	}
+}
@@ -0,0 +1,83 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Strings defined by one connection, referenced by their index
+ */
+public class StringTable {
+	private String[] strings;
+
+	public StringTable() {
+		this.strings = new String[64];
+	}
+
+	/**
+	 * @param index  The index
+	 * @param string The string
+	 * @throws IllegalArgumentException If the index is too big
+	 */
+	public void define(int index, String string) {
+		if (index < 0 || index >= BinaryProtocol.MAX_STRINGS)
+			throw new IllegalArgumentException("Invalid string index: " + index);
+		if (index >= strings.length) {
+			String[] copy = new String[Math.min(BinaryProtocol.MAX_STRINGS, Math.max(index + 1, strings.length * 2))];
+			System.arraycopy(strings, 0, copy, 0, strings.length);
+			strings = copy;
+		}
+		// Strings come from the network, they are not interned
+		strings[index] = string;
+	}
+
+	/**
+	 * @param index The index
+	 * @return The string defined at this index
+	 * @throws IllegalArgumentException If no string is defined at this index
+	 */
+	public String get(int index) {
+		String str = index < strings.length ? strings[index] : null;
+		if (str == null)
+			throw new IllegalArgumentException("Undefined string index: " + index);
+		return str;
+	}
+
+	/**
+	 * Return the type defined at specific index. Known types are replaced by the
+	 * instance of the {@link TypeRegistry}, unknown types are not registered
+	 * 
+	 * @param index The index
+	 * @param types The registry of types
+	 * @return The type defined at this index
+	 * @throws IllegalArgumentException If no string is defined at this index
+	 */
+	public String getType(int index, TypeRegistry types) {
+		String type = get(index);
+		String name = types.name(types.get(type));
+		return name == null ? type : name;
+	}
+}
@@ -0,0 +1,117 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Split a text message on spaces without allocating anything<br />
+ * Tokens are exposed as ranges ({@link #start()}, {@link #end()}) of the
+ * message, {@link #token()} must be called to get them as a String
+ */
+public class Tokenizer {
+	private String message;
+	private int start;
+	private int end;
+
+	public Tokenizer() {
+		reset(null);
+	}
+
+	/**
+	 * Read a new message from the beginning
+	 * 
+	 * @param message The message, null is read as an empty message
+	 * @return This tokenizer
+	 */
+	public Tokenizer reset(String message) {
+		this.message = message == null ? "" : message;
+		this.start = 0;
+		this.end = 0;
+		return this;
+	}
+
+	/**
+	 * Move to the next token, consecutive spaces are skipped
+	 * 
+	 * @return false if there is no more token
+	 */
+	public boolean next() {
+		int length = message.length();
+		int i = end;
+		while (i < length && message.charAt(i) == ' ')
+			i++;
+		if (i >= length) {
+			start = end = length;
+			return false;
+		}
+		start = i;
+		while (i < length && message.charAt(i) != ' ')
+			i++;
+		end = i;
+		return true;
+	}
+
+	public String message() {
+		return message;
+	}
+
+	/**
+	 * @return The index of the first character of the current token
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @return The index after the last character of the current token
+	 */
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * @return The current token as a positive number, or -1 if the current
+	 *         token is not a valid number
+	 */
+	public long longToken() {
+		if (start == end || end - start > 18)
+			return -1;
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			char c = message.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * @return The current token
+	 */
+	public String token() {
+		return message.substring(start, end);
+	}
+}
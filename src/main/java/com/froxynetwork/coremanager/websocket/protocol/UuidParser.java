@@ -0,0 +1,90 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import java.util.UUID;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Parse uuids in their canonical form (8-4-4-4-12 hexadecimal digits) without
+ * regex and without creating intermediate strings
+ */
+public final class UuidParser {
+
+	private UuidParser() {
+	}
+
+	/**
+	 * @param str The string
+	 * @return The uuid or null if str is not a valid uuid
+	 */
+	public static UUID parse(String str) {
+		return str == null ? null : parse(str, 0, str.length());
+	}
+
+	/**
+	 * @param str   The string
+	 * @param start The index of the first character of the uuid
+	 * @param end   The index after the last character of the uuid
+	 * @return The uuid or null if this part of str is not a valid uuid
+	 */
+	public static UUID parse(CharSequence str, int start, int end) {
+		if (end - start != 36)
+			return null;
+		if (str.charAt(start + 8) != '-' || str.charAt(start + 13) != '-' || str.charAt(start + 18) != '-'
+				|| str.charAt(start + 23) != '-')
+			return null;
+		long most = 0;
+		long least = 0;
+		int digits = 0;
+		for (int i = start; i < end; i++) {
+			char c = str.charAt(i);
+			if (c == '-')
+				continue;
+			int value = hex(c);
+			if (value < 0)
+				return null;
+			if (digits < 16)
+				most = (most << 4) | value;
+			else
+				least = (least << 4) | value;
+			digits++;
+		}
+		// A dash at another position
+		if (digits != 32)
+			return null;
+		return new UUID(most, least);
+	}
+
+	private static int hex(char c) {
+		if (c >= '0' && c <= '9')
+			return c - '0';
+		if (c >= 'a' && c <= 'f')
+			return c - 'a' + 10;
+		if (c >= 'A' && c <= 'F')
+			return c - 'A' + 10;
+		return -1;
+	}
+}
@@ -0,0 +1,122 @@
+package com.froxynetwork.coremanager.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class ClusterEventLoopTest {
+	private ClusterEventLoop loop;
+
+	@Before
+	public void setUp() {
+		loop = new ClusterEventLoop(1024);
+	}
+
+	@After
+	public void tearDown() {
+		loop.stop();
+	}
+
+	/**
+	 * Submit events one by one, so that the event loop parks between two events.
+	 * A lost wake-up leaves an event in the buffer until the next submission
+	 */
+	@Test(timeout = 60000)
+	public void testNoLostWakeUp() throws InterruptedException {
+		for (int i = 0; i < 200000; i++) {
+			CountDownLatch latch = new CountDownLatch(1);
+			loop.execute(latch::countDown);
+			assertTrue("Event " + i + " not executed", latch.await(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testOrderAndNoLoss() throws InterruptedException {
+		int producers = 4;
+		int events = 250000;
+		// Only written by the event loop
+		int[] last = new int[producers];
+		AtomicReference<String> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			last[p] = -1;
+			Thread t = new Thread(() -> {
+				for (int i = 0; i < events; i++) {
+					int n = i;
+					loop.execute(() -> {
+						// Events of a producer are executed in order
+						if (last[producer] != n - 1)
+							failure.compareAndSet(null,
+									"Producer " + producer + ": got " + n + " after " + last[producer]);
+						last[producer] = n;
+					});
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads)
+			t.join();
+		int[] result = loop.submit(() -> last.clone()).join();
+		assertNull(failure.get(), failure.get());
+		for (int p = 0; p < producers; p++)
+			assertEquals(events - 1, result[p]);
+		// processed is increased after each event, read it from the next one
+		assertEquals(producers * events + 1, (long) loop.submit(loop::getProcessed).join());
+	}
+
+	@Test(timeout = 10000)
+	public void testError() {
+		// An Error thrown by a mutation doesn't kill the event loop
+		loop.execute(() -> {
+			throw new StackOverflowError();
+		});
+		assertEquals(1, (int) loop.submit(() -> 1).join());
+	}
+
+	@Test
+	public void testInline() {
+		boolean inline = loop.submit(() -> {
+			boolean[] executed = { false };
+			loop.execute(() -> executed[0] = true);
+			return executed[0] && loop.inEventLoop();
+		}).join();
+		assertTrue(inline);
+	}
+}
@@ -0,0 +1,94 @@
+package com.froxynetwork.coremanager.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Submit a lot of failing actions from many threads at once and check that
+ * each one is retried exactly once, without being lost or executed twice<br />
+ * The number of actions can be changed with -Dscheduler.stress.tasks
+ */
+public class SchedulerStressTest {
+	private static final int THREADS = 16;
+	private static final int TASKS = Integer.getInteger("scheduler.stress.tasks", 1_000_000);
+
+	@Test(timeout = 120000)
+	public void testNoLostTask() throws InterruptedException {
+		// Retry after 1 ms, at most 2 attempts
+		RetryPolicy policy = new RetryPolicy(1, 1, 1, 0, 2, -1);
+		int perThread = TASKS / THREADS;
+		int total = perThread * THREADS;
+		// Number of executions of each action
+		AtomicIntegerArray executions = new AtomicIntegerArray(total);
+		AtomicInteger errors = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(total);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> producers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int first = t * perThread;
+			Thread producer = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException ex) {
+					return;
+				}
+				for (int i = first; i < first + perThread; i++) {
+					int id = i;
+					// Fail the first time so that the action goes through the submission queue
+					Scheduler.add(() -> {
+						if (executions.incrementAndGet(id) == 1)
+							return false;
+						done.countDown();
+						return true;
+					}, errors::incrementAndGet, policy);
+				}
+			}, "Producer #" + t);
+			producers.add(producer);
+			producer.start();
+		}
+		start.countDown();
+		for (Thread producer : producers)
+			producer.join();
+		assertTrue("Lost " + done.getCount() + " tasks", done.await(60, TimeUnit.SECONDS));
+		assertEquals(0, errors.get());
+		for (int i = 0; i < total; i++)
+			assertEquals("Task " + i, 2, executions.get(i));
+		// Drained
+		while (Scheduler.size() > 0)
+			Thread.sleep(1);
+	}
+}
@@ -0,0 +1,305 @@
+package com.froxynetwork.coremanager.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.froxynetwork.coremanager.websocket.protocol.SharedCommand;
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class OutboundQueueTest {
+	private VPS vps;
+	private WebSocketServerImpl webSocket;
+	private OutboundQueue queue;
+
+	@Before
+	public void setUp() {
+		vps = mock(VPS.class);
+		webSocket = mock(WebSocketServerImpl.class);
+		when(vps.getId()).thenReturn("VPS01");
+		when(vps.getWebSocket()).thenReturn(webSocket);
+		when(webSocket.isConnected()).thenReturn(true);
+		when(webSocket.isAuthenticated()).thenReturn(true);
+		// Flush on the current thread
+		ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArgument(0)).run();
+			return null;
+		}).when(executor).execute(any(Runnable.class));
+		queue = new OutboundQueue(vps, executor, 3, 10, 10, 1000);
+	}
+
+	/**
+	 * Queue messages while the VPS is not linked, then link it
+	 */
+	private void link() {
+		when(vps.isLinked()).thenReturn(true);
+		queue.flush();
+	}
+
+	@Test
+	public void testDuplicate() {
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_1 LOBBY");
+		assertEquals(1, queue.size());
+		link();
+		verify(webSocket).sendCommand("register", "LOBBY_1 LOBBY");
+	}
+
+	@Test
+	public void testUnregisterAfterRegister() {
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("unregister", "LOBBY_1 LOBBY");
+		link();
+		verify(webSocket, never()).sendCommand("register", "LOBBY_1 LOBBY");
+		verify(webSocket).sendCommand("unregister", "LOBBY_1 LOBBY");
+	}
+
+	@Test
+	public void testUnregisterAfterSupersededRegister() {
+		// The last unregister must not be merged with the first one as the server
+		// has been registered again
+		queue.add("unregister", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("unregister", "LOBBY_1 LOBBY");
+		assertEquals(1, queue.size());
+		link();
+		verify(webSocket, never()).sendCommand("register", "LOBBY_1 LOBBY");
+		verify(webSocket).sendCommand("unregister", "LOBBY_1 LOBBY");
+	}
+
+	@Test
+	public void testRegisterAfterUnregister() {
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("unregister", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_1 LOBBY");
+		assertEquals(2, queue.size());
+		link();
+		InOrder order = inOrder(webSocket);
+		order.verify(webSocket).sendCommand("unregister", "LOBBY_1 LOBBY");
+		order.verify(webSocket).sendCommand("register", "LOBBY_1 LOBBY");
+	}
+
+	@Test
+	public void testStopRemovesStart() {
+		queue.add("start", "a3f6d1b2-2b0f-4c8e-9d57-1f2e3a4b5c6d LOBBY");
+		queue.add("stop", "a3f6d1b2-2b0f-4c8e-9d57-1f2e3a4b5c6d");
+		assertEquals(0, queue.size());
+		link();
+		verify(webSocket, never()).sendCommand(anyString(), anyString());
+	}
+
+	@Test
+	public void testBatch() {
+		// Batches are never merged: the last batch is not the same state as the first one
+		queue.add("batch", "register LOBBY_1 LOBBY");
+		queue.add("batch", "unregister LOBBY_1 LOBBY");
+		queue.add("batch", "register LOBBY_1 LOBBY");
+		assertEquals(3, queue.size());
+		link();
+		InOrder order = inOrder(webSocket);
+		order.verify(webSocket).sendCommand("batch", "register LOBBY_1 LOBBY");
+		order.verify(webSocket).sendCommand("batch", "unregister LOBBY_1 LOBBY");
+		order.verify(webSocket).sendCommand("batch", "register LOBBY_1 LOBBY");
+	}
+
+	@Test
+	public void testResyncAfterDrop() {
+		when(vps.hasCapability(OutboundQueue.RESYNC)).thenReturn(true);
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_2 LOBBY");
+		queue.add("register", "LOBBY_3 LOBBY");
+		// Full
+		queue.add("register", "LOBBY_4 LOBBY");
+		queue.add("unregister", "LOBBY_4 LOBBY");
+		assertEquals(2, queue.getDropped());
+		// Other messages are still queued
+		queue.add("stop", "KOTH_1");
+		assertEquals(4, queue.size());
+		link();
+		InOrder order = inOrder(webSocket);
+		order.verify(webSocket).sendCommand("register", "LOBBY_1 LOBBY");
+		order.verify(webSocket).sendCommand("register", "LOBBY_2 LOBBY");
+		order.verify(webSocket).sendCommand("register", "LOBBY_3 LOBBY");
+		order.verify(webSocket).sendCommand("stop", "KOTH_1");
+		order.verify(webSocket).sendCommand("resync", "");
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testNoResyncWithoutCapability() {
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_2 LOBBY");
+		queue.add("register", "LOBBY_3 LOBBY");
+		queue.add("register", "LOBBY_4 LOBBY");
+		assertEquals(1, queue.getDropped());
+		link();
+		verify(webSocket, never()).sendCommand("resync", "");
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testNoResyncWithoutDrop() {
+		when(vps.hasCapability(OutboundQueue.RESYNC)).thenReturn(true);
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_2 LOBBY");
+		queue.add("register", "LOBBY_3 LOBBY");
+		link();
+		verify(webSocket, never()).sendCommand("resync", "");
+	}
+
+	@Test
+	public void testResumeBeforeCapabilities() {
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(true);
+		link();
+		queue.add("register", "LOBBY_1 LOBBY");
+		verify(webSocket).sendCommand("seq", "1 register LOBBY_1 LOBBY");
+		// New link, capabilities are reset and "resume" comes before "capabilities"
+		when(vps.isLinked()).thenReturn(false);
+		queue.onUnlink();
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(false);
+		queue.add("register", "LOBBY_2 LOBBY");
+		when(vps.isLinked()).thenReturn(true);
+		queue.onLink();
+		queue.flush();
+		assertEquals(1, queue.size());
+		assertEquals(true, queue.resume(queue.getSession(), 0));
+		// Sent again with its sequence number, then the new message
+		verify(webSocket, times(2)).sendCommand("seq", "1 register LOBBY_1 LOBBY");
+		verify(webSocket).sendCommand("seq", "2 register LOBBY_2 LOBBY");
+		verify(webSocket, never()).sendCommand("register", "LOBBY_2 LOBBY");
+		// Acknowledged by the agent
+		queue.ack(2);
+		queue.onUnlink();
+		queue.onLink();
+		assertEquals(true, queue.resume(queue.getSession(), 2));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testSent() {
+		AtomicReference<WebSocketServerImpl> link = new AtomicReference<>();
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(true);
+		queue.add("start", "a3f6d1b2-2b0f-4c8e-9d57-1f2e3a4b5c6d LOBBY", link::set);
+		// Not sent while the VPS is not linked
+		assertNull(link.get());
+		link();
+		assertSame(webSocket, link.get());
+		// Not acknowledged, it will be sent again once resumed
+		queue.onUnlink();
+		assertNull(link.get());
+		queue.onLink();
+		queue.resume(queue.getSession(), 0);
+		assertSame(webSocket, link.get());
+		// Acknowledged messages are not sent again
+		queue.ack(1);
+		queue.onUnlink();
+		assertSame(webSocket, link.get());
+	}
+
+	@Test
+	public void testSession() {
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(true);
+		link();
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.add("register", "LOBBY_2 LOBBY");
+		InOrder order = inOrder(webSocket);
+		order.verify(webSocket).sendCommand(OutboundQueue.SESSION, queue.getSession());
+		order.verify(webSocket).sendCommand("seq", "1 register LOBBY_1 LOBBY");
+		order.verify(webSocket).sendCommand("seq", "2 register LOBBY_2 LOBBY");
+		// Only announced once
+		verify(webSocket).sendCommand(eq(OutboundQueue.SESSION), anyString());
+	}
+
+	@Test
+	public void testResumeUnknownSession() {
+		// The CoreManager has restarted, the agent resumes a session of the previous one
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(true);
+		link();
+		String session = queue.getSession();
+		assertEquals(false, queue.resume("0b5f7a3c-previous", 500));
+		assertNotEquals(session, queue.getSession());
+		queue.add("register", "LOBBY_1 LOBBY");
+		InOrder order = inOrder(webSocket);
+		order.verify(webSocket).sendCommand(OutboundQueue.SESSION, queue.getSession());
+		order.verify(webSocket).sendCommand("seq", "1 register LOBBY_1 LOBBY");
+	}
+
+	@Test
+	public void testResumeUnknownSeq() {
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(true);
+		link();
+		queue.add("register", "LOBBY_1 LOBBY");
+		queue.onUnlink();
+		queue.onLink();
+		String session = queue.getSession();
+		// The agent can't have received more messages than sent
+		assertEquals(false, queue.resume(session, 500));
+		// Not acknowledged, sent again in the new session
+		verify(webSocket).sendCommand(OutboundQueue.SESSION, queue.getSession());
+		verify(webSocket, times(2)).sendCommand("seq", "1 register LOBBY_1 LOBBY");
+		assertNotEquals(session, queue.getSession());
+	}
+
+	@Test
+	public void testResumeWithoutSession() {
+		// Nothing has been sent with sequence numbers, there is no session to resume
+		assertEquals(false, queue.resume(queue.getSession(), 0));
+	}
+
+	@Test
+	public void testShared() {
+		SharedCommand command = new SharedCommand("batch", "register LOBBY_1 LOBBY");
+		link();
+		queue.add(command);
+		// Without the Java-WebSocket connection, sent as usual
+		verify(webSocket).sendCommand("batch", "register LOBBY_1 LOBBY");
+		// Numbered for this VPS only
+		when(vps.hasCapability(OutboundQueue.SEQ)).thenReturn(true);
+		queue.add(command);
+		verify(webSocket).sendCommand("seq", "1 batch register LOBBY_1 LOBBY");
+	}
+}
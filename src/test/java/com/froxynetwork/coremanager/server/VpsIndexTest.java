@@ -0,0 +1,188 @@
+package com.froxynetwork.coremanager.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Check that {@link VpsIndex} always picks the same VPS as the old linear scan
+ * (lowest non-zero {@link VPS#getScore(int)}, ties broken by id)
+ */
+public class VpsIndexTest {
+	private static final int TYPES = 8;
+
+	private Random random;
+	private VpsIndex index;
+	/**
+	 * Indexed VPS
+	 */
+	private List<VPS> vpss;
+	/**
+	 * Current score of each VPS per type id
+	 */
+	private HashMap<VPS, int[]> scores;
+	private int nextId;
+	/**
+	 * Number of calls to VPS#getScore
+	 */
+	private int calls;
+
+	@Before
+	public void setUp() {
+		random = new Random(42);
+		index = new VpsIndex();
+		vpss = new ArrayList<>();
+		scores = new HashMap<>();
+		nextId = 0;
+	}
+
+	private VPS newVps() {
+		// Stub only: getScore is called a lot and invocations don't need to be recorded
+		VPS vps = mock(VPS.class, withSettings().stubOnly());
+		int[] score = new int[TYPES];
+		randomize(score);
+		// Ids are not created in order
+		String id = String.format("vps%03d", (nextId++ * 37) % 1000);
+		when(vps.getId()).thenReturn(id);
+		when(vps.getScore(anyInt())).thenAnswer(inv -> {
+			calls++;
+			int typeId = inv.getArgument(0);
+			return typeId < TYPES ? scores.get(vps)[typeId] : 0;
+		});
+		scores.put(vps, score);
+		return vps;
+	}
+
+	private void randomize(int[] score) {
+		for (int i = 0; i < score.length; i++)
+			// Few different values so that there are ties, 0 = not available
+			score[i] = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(5);
+	}
+
+	/**
+	 * The old linear scan
+	 */
+	private VPS linear(int typeId, Predicate<VPS> filter) {
+		VPS best = null;
+		int bestScore = 0;
+		for (VPS vps : vpss) {
+			if (!filter.test(vps))
+				continue;
+			int score = vps.getScore(typeId);
+			if (score == 0)
+				continue;
+			if (best == null || score < bestScore
+					|| (score == bestScore && vps.getId().compareTo(best.getId()) < 0)) {
+				best = vps;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	@Test
+	public void testEmpty() {
+		assertNull(index.find(0, vps -> true));
+		assertNull(index.find(TYPES + 3, vps -> true));
+	}
+
+	@Test
+	public void testSameAsLinearScan() {
+		for (int i = 0; i < 20; i++) {
+			VPS vps = newVps();
+			vpss.add(vps);
+			index.add(vps);
+		}
+		for (int step = 0; step < 4000; step++) {
+			int action = random.nextInt(10);
+			if (action == 0 && vpss.size() < 40) {
+				VPS vps = newVps();
+				vpss.add(vps);
+				index.add(vps);
+			} else if (action == 1 && vpss.size() > 1) {
+				VPS vps = vpss.remove(random.nextInt(vpss.size()));
+				index.remove(vps);
+			} else if (action <= 5 && !vpss.isEmpty()) {
+				// Score changed (server added or removed, link), the VPS notifies the index
+				VPS vps = vpss.get(random.nextInt(vpss.size()));
+				randomize(scores.get(vps));
+				index.update(vps);
+			} else if (action == 6 && !vpss.isEmpty()) {
+				// Connection closed without notifying the index
+				VPS vps = vpss.get(random.nextInt(vpss.size()));
+				int[] score = scores.get(vps);
+				for (int i = 0; i < score.length; i++)
+					score[i] = 0;
+			}
+			// Types are indexed lazily and not in order
+			int typeId = random.nextInt(TYPES + 2);
+			int mod = 1 + random.nextInt(3);
+			Predicate<VPS> filter = mod == 1 ? vps -> true : vps -> vps.getId().hashCode() % mod != 0;
+			assertSame("Step " + step + ", type " + typeId, linear(typeId, filter), index.find(typeId, filter));
+		}
+	}
+
+	@Test
+	public void testStaleVisitedOnce() {
+		for (int i = 0; i < 1000; i++) {
+			VPS vps = newVps();
+			vpss.add(vps);
+			index.add(vps);
+		}
+		assertSame(linear(0, vps -> true), index.find(0, vps -> true));
+		// All connections closed without notifying the index
+		for (VPS vps : vpss)
+			Arrays.fill(scores.get(vps), 0);
+		calls = 0;
+		assertNull(index.find(0, vps -> true));
+		// Each indexed VPS is checked once
+		assertTrue("getScore called " + calls + " times", calls <= vpss.size());
+		// Rejected VPS are not checked
+		for (VPS vps : vpss)
+			randomize(scores.get(vps));
+		vpss.forEach(index::update);
+		calls = 0;
+		assertSame(linear(0, vps -> false), index.find(0, vps -> false));
+		assertEquals(0, calls);
+	}
+}
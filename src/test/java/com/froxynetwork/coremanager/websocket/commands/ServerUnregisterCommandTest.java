@@ -0,0 +1,66 @@
+package com.froxynetwork.coremanager.websocket.commands;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class ServerUnregisterCommandTest {
+
+	@Test
+	public void testNull() {
+		WebSocketServerImpl webSocket = mock(WebSocketServerImpl.class);
+		new ServerUnregisterCommand(webSocket).onReceive(null);
+		verifyNoInteractions(webSocket);
+	}
+
+	@Test
+	public void testUnauthenticated() {
+		WebSocketServerImpl webSocket = mock(WebSocketServerImpl.class);
+		new ServerUnregisterCommand(webSocket).onReceive("id type");
+		verify(webSocket).isAuthenticated();
+		verifyNoMoreInteractions(webSocket);
+	}
+
+	@Test
+	public void testInvalid() {
+		// Invalid messages are rejected before looking for the VPS
+		WebSocketServerImpl webSocket = mock(WebSocketServerImpl.class);
+		when(webSocket.isAuthenticated()).thenReturn(true);
+		ServerUnregisterCommand command = new ServerUnregisterCommand(webSocket);
+		command.onReceive("");
+		command.onReceive("    ");
+		command.onReceive("id");
+		command.onReceive("  id   ");
+	}
+}
@@ -0,0 +1,148 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Decode the same "register" commands sent as text messages or as one binary
+ * frame<br />
+ * "binary" reuses server ids defined by previous frames, "binaryWithDefines"
+ * defines them in the same frame (first frame of a connection)<br />
+ * Run with: mvn -Pbenchmark test -Dbenchmark=BinaryProtocolBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryProtocolBenchmark {
+	@Param({ "1", "100" })
+	private int commands;
+
+	private String[] text;
+	private String frame;
+	private String frameWithDefines;
+	private Tokenizer tokenizer = new Tokenizer();
+	private BinaryReader reader = new BinaryReader();
+	private StringTable strings = new StringTable();
+
+	@Setup
+	public void setUp() {
+		text = new String[commands];
+		ByteArrayOutputStream registers = new ByteArrayOutputStream();
+		ByteArrayOutputStream defines = new ByteArrayOutputStream();
+		for (int i = 0; i < commands; i++) {
+			UUID uuid = UUID.randomUUID();
+			String id = "LOBBY_" + Integer.toHexString(0x100000 + i);
+			text[i] = uuid + " " + id;
+			defines.write(BinaryProtocol.DEFINE);
+			writeVarInt(defines, i);
+			byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(defines, utf8.length);
+			defines.write(utf8, 0, utf8.length);
+			registers.write(BinaryProtocol.REGISTER);
+			writeLong(registers, uuid.getMostSignificantBits());
+			writeLong(registers, uuid.getLeastSignificantBits());
+			writeVarInt(registers, i);
+			strings.define(i, id);
+		}
+		frame = Base64.getEncoder().encodeToString(registers.toByteArray());
+		ByteArrayOutputStream all = new ByteArrayOutputStream();
+		all.write(defines.toByteArray(), 0, defines.size());
+		all.write(registers.toByteArray(), 0, registers.size());
+		frameWithDefines = Base64.getEncoder().encodeToString(all.toByteArray());
+	}
+
+	private static void writeVarInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static void writeLong(ByteArrayOutputStream out, long value) {
+		for (int i = 56; i >= 0; i -= 8)
+			out.write((int) (value >> i));
+	}
+
+	@Benchmark
+	public void text(Blackhole bh) {
+		for (String message : text) {
+			tokenizer.reset(message);
+			tokenizer.next();
+			bh.consume(UuidParser.parse(message, tokenizer.start(), tokenizer.end()));
+			tokenizer.next();
+			bh.consume(tokenizer.token());
+		}
+	}
+
+	@Benchmark
+	public void binary(Blackhole bh) {
+		decode(frame, bh);
+	}
+
+	@Benchmark
+	public void binaryWithDefines(Blackhole bh) {
+		decode(frameWithDefines, bh);
+	}
+
+	private void decode(String base64, Blackhole bh) {
+		reader.reset(base64);
+		while (reader.hasRemaining()) {
+			switch (reader.readByte()) {
+			case BinaryProtocol.DEFINE:
+				strings.define(reader.readVarInt(), reader.readString());
+				break;
+			case BinaryProtocol.REGISTER:
+				bh.consume(reader.readUUID());
+				bh.consume(strings.get(reader.readVarInt()));
+				break;
+			default:
+				throw new IllegalStateException();
+			}
+		}
+	}
+}
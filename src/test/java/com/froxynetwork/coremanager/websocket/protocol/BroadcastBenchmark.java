@@ -0,0 +1,90 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import java.util.concurrent.TimeUnit;
+
+import org.java_websocket.drafts.Draft_6455;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Send one batch of 20 notifications to many VPS, as Java-WebSocket writes
+ * it<br />
+ * "perConnection" encodes the text for each VPS (what
+ * WebSocketServerImpl#sendCommand does), "shared" encodes it once with a
+ * {@link SharedCommand}. Use "-prof gc" to get the bytes allocated per
+ * broadcast<br />
+ * Run with: mvn -Pbenchmark test -Dbenchmark=BroadcastBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+	@Param({ "100", "1000" })
+	private int vps;
+
+	private Draft_6455 draft = new Draft_6455();
+	private String payload;
+
+	@Setup
+	public void setUp() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			if (sb.length() > 0)
+				sb.append('\n');
+			sb.append(i % 2 == 0 ? "register" : "unregister").append(" LOBBY_").append(Integer.toHexString(0x100000 + i))
+					.append(" LOBBY");
+		}
+		payload = sb.toString();
+	}
+
+	@Benchmark
+	public void perConnection(Blackhole bh) {
+		for (int i = 0; i < vps; i++)
+			bh.consume(draft.createBinaryFrame(draft.createFrames("batch " + payload, false).get(0)));
+	}
+
+	@Benchmark
+	public void shared(Blackhole bh) {
+		SharedCommand command = new SharedCommand("batch", payload);
+		for (int i = 0; i < vps; i++)
+			bh.consume(draft.createBinaryFrame(command.frame()));
+	}
+}
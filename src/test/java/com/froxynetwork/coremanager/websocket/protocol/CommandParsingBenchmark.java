@@ -0,0 +1,75 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+/**
+ * Parse a "register &lt;uuid&gt; &lt;id&gt;" message with Pattern.split and
+ * UUID.fromString (old commands) or with {@link Tokenizer} and
+ * {@link UuidParser}<br />
+ * Run with: mvn -Pbenchmark test -Dbenchmark=CommandParsingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+	private Pattern spacePattern = Pattern.compile(" ");
+	private Tokenizer tokenizer = new Tokenizer();
+	private String message = UUID.randomUUID().toString() + " LOBBY_1a2b3c";
+
+	@Benchmark
+	public void split(Blackhole bh) {
+		String[] split = spacePattern.split(message);
+		bh.consume(UUID.fromString(split[0]));
+		bh.consume(split[1]);
+	}
+
+	@Benchmark
+	public void tokenizer(Blackhole bh) {
+		tokenizer.reset(message);
+		tokenizer.next();
+		bh.consume(UuidParser.parse(message, tokenizer.start(), tokenizer.end()));
+		tokenizer.next();
+		bh.consume(tokenizer.token());
+	}
+}
@@ -0,0 +1,70 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+
+import org.java_websocket.drafts.Draft_6455;
+import org.junit.Test;
+
+import com.froxynetwork.froxynetwork.network.websocket.WebSocketServerImpl;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class SharedCommandTest {
+
+	@Test
+	public void testPayloadShared() {
+		SharedCommand command = new SharedCommand("register", "LOBBY_1 LOBBY");
+		ByteBuffer payload = command.payload();
+		assertSame(payload, command.payload());
+		assertTrue(payload.isReadOnly());
+	}
+
+	@Test
+	public void testSameFrameAsText() {
+		// Same bytes on the wire as the text frame of "<channel> <message>"
+		Draft_6455 draft = new Draft_6455();
+		SharedCommand command = new SharedCommand("register", "LOBBY_\u00e9 LOBBY");
+		ByteBuffer expected = draft.createBinaryFrame(draft.createFrames("register LOBBY_\u00e9 LOBBY", false).get(0));
+		// Each frame has its own position, the payload can be written many times
+		for (int i = 0; i < 3; i++)
+			assertEquals(expected, draft.createBinaryFrame(command.frame()));
+		assertEquals(0, command.payload().position());
+	}
+
+	@Test
+	public void testFallback() {
+		// No Java-WebSocket connection found, the command is sent as usual
+		WebSocketServerImpl webSocket = mock(WebSocketServerImpl.class);
+		new SharedCommand("unregister", "LOBBY_1 LOBBY").send(webSocket);
+		verify(webSocket).sendCommand("unregister", "LOBBY_1 LOBBY");
+	}
+}
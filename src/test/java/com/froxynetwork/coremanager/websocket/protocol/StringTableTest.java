@@ -0,0 +1,87 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.froxynetwork.coremanager.server.config.TypeRegistry;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class StringTableTest {
+
+	@Test
+	public void testNotInterned() {
+		StringTable strings = new StringTable();
+		String id = new String("LOBBY_1a2b3c");
+		strings.define(3, id);
+		assertSame(id, strings.get(3));
+		assertNotSame(id.intern(), strings.get(3));
+	}
+
+	@Test
+	public void testGrow() {
+		StringTable strings = new StringTable();
+		strings.define(BinaryProtocol.MAX_STRINGS - 1, "last");
+		assertEquals("last", strings.get(BinaryProtocol.MAX_STRINGS - 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooBig() {
+		new StringTable().define(BinaryProtocol.MAX_STRINGS, "a");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegative() {
+		new StringTable().define(-1, "a");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUndefined() {
+		StringTable strings = new StringTable();
+		strings.define(0, "a");
+		strings.get(1);
+	}
+
+	@Test
+	public void testType() {
+		TypeRegistry types = new TypeRegistry();
+		types.register("KOTH");
+		StringTable strings = new StringTable();
+		strings.define(0, new String("koth"));
+		strings.define(1, new String("bungee"));
+		strings.define(2, "UNKNOWN_TYPE");
+		// Known types use the instance of the registry
+		assertSame(types.name(types.get("KOTH")), strings.getType(0, types));
+		assertSame(TypeRegistry.BUNGEE, strings.getType(1, types));
+		// Unknown types are kept but not registered
+		assertEquals("UNKNOWN_TYPE", strings.getType(2, types));
+		assertEquals(TypeRegistry.UNKNOWN, types.get("UNKNOWN_TYPE"));
+		assertEquals(2, types.size());
+	}
+}
@@ -0,0 +1,122 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class TokenizerTest {
+
+	private static List<String> tokens(Tokenizer tokenizer, String message) {
+		List<String> tokens = new ArrayList<>();
+		tokenizer.reset(message);
+		while (tokenizer.next()) {
+			assertEquals(tokenizer.token(), message.substring(tokenizer.start(), tokenizer.end()));
+			tokens.add(tokenizer.token());
+		}
+		return tokens;
+	}
+
+	@Test
+	public void testNull() {
+		Tokenizer tokenizer = new Tokenizer().reset(null);
+		assertEquals("", tokenizer.message());
+		assertFalse(tokenizer.next());
+		assertFalse(tokenizer.next());
+		assertEquals(0, tokenizer.start());
+		assertEquals(0, tokenizer.end());
+		assertFalse(new Tokenizer().next());
+	}
+
+	@Test
+	public void testSpaces() {
+		Tokenizer tokenizer = new Tokenizer();
+		assertEquals(Arrays.asList(), tokens(tokenizer, ""));
+		assertEquals(Arrays.asList(), tokens(tokenizer, "     "));
+		assertEquals(Arrays.asList("a"), tokens(tokenizer, "a"));
+		assertEquals(Arrays.asList("a", "b"), tokens(tokenizer, "a b"));
+		assertEquals(Arrays.asList("a", "b"), tokens(tokenizer, "   a    b   "));
+		assertEquals(Arrays.asList("register", "id", "type"), tokens(tokenizer, "register  id    type "));
+		// Only spaces are separators
+		assertEquals(Arrays.asList("a\tb", "c\n"), tokens(tokenizer, "a\tb c\n"));
+	}
+
+	@Test
+	public void testReset() {
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset("first message");
+		assertTrue(tokenizer.next());
+		tokenizer.reset("x");
+		assertTrue(tokenizer.next());
+		assertEquals("x", tokenizer.token());
+		assertFalse(tokenizer.next());
+	}
+
+	@Test
+	public void testLongToken() {
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset("0 42 -1 12a 999999999999999999 1000000000000000000 9223372036854775807 99999999999999999999");
+		long[] expected = { 0, 42, -1, -1, 999999999999999999L, -1, -1, -1 };
+		for (long e : expected) {
+			assertTrue(tokenizer.next());
+			assertEquals(tokenizer.token(), e, tokenizer.longToken());
+		}
+		assertFalse(tokenizer.next());
+		// No current token
+		assertEquals(-1, tokenizer.longToken());
+	}
+
+	@Test
+	public void testFuzz() {
+		Random random = new Random(1234);
+		char[] alphabet = " 0123456789ab-".toCharArray();
+		Tokenizer tokenizer = new Tokenizer();
+		for (int i = 0; i < 100000; i++) {
+			char[] chars = new char[random.nextInt(30)];
+			for (int j = 0; j < chars.length; j++)
+				chars[j] = alphabet[random.nextInt(alphabet.length)];
+			String message = new String(chars);
+			List<String> expected = new ArrayList<>(Arrays.asList(message.split(" ")));
+			expected.removeIf(String::isEmpty);
+			tokenizer.reset(message);
+			for (String e : expected) {
+				assertTrue(message, tokenizer.next());
+				assertEquals(message, e, tokenizer.token());
+				long value = e.matches("[0-9]{1,18}") ? Long.parseLong(e) : -1;
+				assertEquals(message, value, tokenizer.longToken());
+			}
+			assertFalse(message, tokenizer.next());
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package com.froxynetwork.coremanager.websocket.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 FroxyNetwork
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * 
+ * @author 0ddlyoko
+ */
+public class UuidParserTest {
+	/**
+	 * Reference used by the fuzz test
+	 */
+	private static final Pattern CANONICAL = Pattern
+			.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+	@Test
+	public void testValid() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			UUID uuid = new UUID(random.nextLong(), random.nextLong());
+			assertEquals(uuid, UuidParser.parse(uuid.toString()));
+			assertEquals(uuid, UuidParser.parse(uuid.toString().toUpperCase()));
+		}
+		assertEquals(new UUID(0, 0), UuidParser.parse("00000000-0000-0000-0000-000000000000"));
+		assertEquals(new UUID(-1, -1), UuidParser.parse("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+	}
+
+	@Test
+	public void testRange() {
+		UUID uuid = UUID.randomUUID();
+		String message = "register " + uuid + " server-1";
+		assertEquals(uuid, UuidParser.parse(message, 9, 45));
+		assertNull(UuidParser.parse(message, 8, 44));
+		assertNull(UuidParser.parse(message, 10, 46));
+	}
+
+	@Test
+	public void testWrongLength() {
+		assertNull(UuidParser.parse(null));
+		assertNull(UuidParser.parse(""));
+		assertNull(UuidParser.parse("-"));
+		assertNull(UuidParser.parse("0000000-0000-0000-0000-000000000000"));
+		assertNull(UuidParser.parse("00000000-0000-0000-0000-0000000000000"));
+		assertNull(UuidParser.parse("00000000000000000000000000000000"));
+		// UUID.fromString accepts shorter groups, we don't
+		assertNull(UuidParser.parse("0-0-0-0-0"));
+	}
+
+	@Test
+	public void testWrongDashPositions() {
+		assertNull(UuidParser.parse("0000000-00000-0000-0000-000000000000"));
+		assertNull(UuidParser.parse("00000000-000-00000-0000-000000000000"));
+		assertNull(UuidParser.parse("00000000-0000-0000-00000-00000000000"));
+		assertNull(UuidParser.parse("00000000-0000-0000-0000-00000-000000"));
+		assertNull(UuidParser.parse("00000000_0000_0000_0000_000000000000"));
+		assertNull(UuidParser.parse("------------------------------------"));
+	}
+
+	@Test
+	public void testNonHex() {
+		assertNull(UuidParser.parse("g0000000-0000-0000-0000-000000000000"));
+		assertNull(UuidParser.parse("00000000-0000-0000-0000-00000000000G"));
+		assertNull(UuidParser.parse("00000000-0000-0000-0000-00000000000 "));
+		assertNull(UuidParser.parse("0000000+-0000-0000-0000-000000000000"));
+		// Fullwidth digit, Character.digit would accept it
+		assertNull(UuidParser.parse("0000000\uff10-0000-0000-0000-000000000000"));
+	}
+
+	@Test
+	public void testFuzz() {
+		Random random = new Random(1234);
+		char[] alphabet = "0123456789abcdefABCDEF-g -\u00e9".toCharArray();
+		for (int i = 0; i < 200000; i++) {
+			char[] chars;
+			if (random.nextBoolean()) {
+				// Mutate a valid uuid
+				chars = UUID.randomUUID().toString().toCharArray();
+				int mutations = 1 + random.nextInt(3);
+				for (int j = 0; j < mutations; j++)
+					chars[random.nextInt(chars.length)] = alphabet[random.nextInt(alphabet.length)];
+			} else {
+				chars = new char[random.nextInt(40)];
+				for (int j = 0; j < chars.length; j++)
+					chars[j] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String str = new String(chars);
+			UUID expected = CANONICAL.matcher(str).matches() ? UUID.fromString(str) : null;
+			assertEquals(str, expected, UuidParser.parse(str));
+		}
+	}
+}